@@ -31,9 +31,26 @@
 package com.mhschmieder.fxlayergraphics;
 
 import java.text.NumberFormat;
-
-import com.mhschmieder.commonstoolkit.text.TextUtilities;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.mhschmieder.fxlayergraphics.model.AbstractLayerCollection;
+import com.mhschmieder.fxlayergraphics.model.LayerCollection;
+import com.mhschmieder.fxlayergraphics.model.LayerField;
+import com.mhschmieder.fxlayergraphics.model.LayerNameNormalizer;
 import com.mhschmieder.fxlayergraphics.model.LayerProperties;
+import com.mhschmieder.fxlayergraphics.model.LayerState;
+import com.mhschmieder.fxlayergraphics.model.LayerTable;
+import com.mhschmieder.fxlayergraphics.model.LayerTableCollection;
+import com.mhschmieder.fxlayergraphics.model.LayerTransaction;
 
 import javafx.beans.Observable;
 import javafx.collections.FXCollections;
@@ -73,8 +90,8 @@ public final class LayerUtilities {
         // otherwise apply the uniquefied Layer Name Default.
         final int excludeLayerIndex = -1;
         String layerCandidateName = layerCandidate.getLayerName();
-        if ( ( layerCandidateName == null ) || layerCandidateName.trim().isEmpty() ) {
-            // Recursively search for (and enforce) name-uniqueness of the
+        if ( layerCandidate.isLayerNameBlank() ) {
+            // Search for (and enforce) name-uniqueness of the
             // default Layer Name, but always use a uniquefier appendix so that
             // none of them are unadorned (even the first).
             layerCandidateName = LAYER_NAME_DEFAULT;
@@ -86,7 +103,7 @@ public final class LayerUtilities {
                                                      excludeLayerIndex );
         }
         else {
-            // Recursively search for (and enforce) name-uniqueness of the
+            // Search for (and enforce) name-uniqueness of the
             // Layer candidate, leaving unadorned if possible.
             layerCandidateName = getUniqueLayerName( layerCandidateName,
                                                      layerCollection,
@@ -125,6 +142,16 @@ public final class LayerUtilities {
         }
     }
 
+    // Begin a transaction on the Layer Collection, during which all edits are
+    // held back from list change listeners until the transaction is closed.
+    // NOTE: Only the collections that log their own edits can hold them back;
+    // for any other collection, the transaction has no effect.
+    public static LayerTransaction beginTransaction( final ObservableList< LayerProperties > layerCollection ) {
+        return ( layerCollection instanceof AbstractLayerCollection )
+            ? ( ( AbstractLayerCollection ) layerCollection ).beginTransaction()
+            : new LayerTransaction( null );
+    }
+
     // Enforce the Active Layer Policy, which is that only one Layer can be
     // Active at a time. Default to the Default Layer if none are Active.
     private static LayerProperties enforceActiveLayerPolicy( final ObservableList< LayerProperties > layerCollection,
@@ -154,8 +181,22 @@ public final class LayerUtilities {
         // In order to avoid consuming a desired positive setting of a new
         // Active Layer when a higher row is inactivated, we must first set the
         // new Active Layer and then inactivate the rest.
+        // NOTE: The indexed collection tracks its Active Layers, so it only
+        // touches the new Active Layer and the previous one.
+        if ( layerCollection instanceof LayerCollection ) {
+            final LayerProperties activeLayer = layerCollection.get( currentLayerIndex );
+            ( ( LayerCollection ) layerCollection ).switchActiveLayer( activeLayer );
+            return activeLayer;
+        }
+
         final LayerProperties activeLayer = setActiveLayer( layerCollection, currentLayerIndex );
 
+        // NOTE: The Layer Table behind the flyweight collection only allows
+        // one Active Layer, so the rest are already Inactive.
+        if ( layerCollection instanceof LayerTableCollection ) {
+            return activeLayer;
+        }
+
         for ( int layerIndex = 0, numberOfLayers = layerCollection
                 .size(); layerIndex < numberOfLayers; layerIndex++ ) {
             final LayerProperties layer = layerCollection.get( layerIndex );
@@ -182,26 +223,45 @@ public final class LayerUtilities {
         return activeLayer;
     }
 
+    // Enforce the Hidden Layer Policy after editing the Visible Status of any
+    // number of Layers, which is only to make the Default Layer Active if the
+    // Active Layer is now Hidden, unless it is the Default Layer already.
+    private static void enforceHiddenLayerPolicy( final ObservableList< LayerProperties > layerCollection ) {
+        final int activeLayerIndex = getActiveLayerIndex( layerCollection );
+        if ( ( activeLayerIndex != DEFAULT_LAYER_INDEX )
+                && isLayerHidden( layerCollection, activeLayerIndex ) ) {
+            enforceActiveLayerPolicy( layerCollection, DEFAULT_LAYER_INDEX, true );
+        }
+    }
+
     // Enforce the Hidden Layer Policy, which is only that a Hidden Layer cannot
     // be made Active, and to default to the Default Layer if the current Layer
     // is Active and we are trying to set it to Hidden.
     public static void enforceHiddenLayerPolicy( final ObservableList< LayerProperties > layerCollection,
                                                  final int currentLayerIndex,
                                                  final boolean currentLayerVisible ) {
-        // Always cache the new Hidden status as that is always accepted.
-        final LayerProperties layer = getLayer( layerCollection, currentLayerIndex );
-        if ( currentLayerVisible != layer.isLayerVisible() ) {
-            layer.setLayerVisible( currentLayerVisible );
-        }
-
-        // Make the Default Layer Active if the current Layer is both Active and
-        // Hidden otherwise, unless we are acting on the Default Layer already.
-        if ( ( currentLayerIndex != DEFAULT_LAYER_INDEX ) && !currentLayerVisible ) {
-            final int activeLayerIndex = getActiveLayerIndex( layerCollection );
-            if ( activeLayerIndex == currentLayerIndex ) {
-                enforceActiveLayerPolicy( layerCollection, DEFAULT_LAYER_INDEX, true );
+        // Report the Hidden status and any change of Active Layer together.
+        final LayerTransaction layerTransaction = beginTransaction( layerCollection );
+        try {
+            // Always cache the new Hidden status as that is always accepted.
+            final LayerProperties layer = getLayer( layerCollection, currentLayerIndex );
+            if ( currentLayerVisible != layer.isLayerVisible() ) {
+                layer.setLayerVisible( currentLayerVisible );
+            }
+
+            // Make the Default Layer Active if the current Layer is both Active
+            // and Hidden otherwise, unless we are acting on the Default Layer
+            // already.
+            if ( ( currentLayerIndex != DEFAULT_LAYER_INDEX ) && !currentLayerVisible ) {
+                final int activeLayerIndex = getActiveLayerIndex( layerCollection );
+                if ( activeLayerIndex == currentLayerIndex ) {
+                    enforceActiveLayerPolicy( layerCollection, DEFAULT_LAYER_INDEX, true );
+                }
             }
         }
+        finally {
+            layerTransaction.close();
+        }
     }
 
     // Enforce the Hidden Layer Policy, which is that only a Hidden Layer cannot
@@ -215,6 +275,19 @@ public final class LayerUtilities {
     }
 
     public static LayerProperties getActiveLayer( final ObservableList< LayerProperties > layerCollection ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            final LayerProperties activeLayer = ( ( LayerCollection ) layerCollection )
+                    .getActiveLayer();
+            return ( activeLayer != null ) ? activeLayer : getDefaultLayer( layerCollection );
+        }
+
+        if ( layerCollection instanceof LayerTableCollection ) {
+            final int activeLayerIndex = getLayerTable( layerCollection ).getActiveLayerIndex();
+            return ( activeLayerIndex >= 0 )
+                ? layerCollection.get( activeLayerIndex )
+                : getDefaultLayer( layerCollection );
+        }
+
         for ( final LayerProperties layer : layerCollection ) {
             if ( layer.isLayerActive() ) {
                 return layer;
@@ -242,8 +315,15 @@ public final class LayerUtilities {
     }
 
     // Get the observable drop-list of assignable Layer Names.
+    // NOTE: If the collection already keeps its assignable Layer Names current,
+    // its own live list is handed out, which is read-only and stays current
+    // with the collection, rather than a copy that would go stale.
     public static ObservableList< String > getAssignableLayerNames( final ObservableList< LayerProperties > layerCollection,
                                                                     final boolean supportMultiEdit ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            return ( ( LayerCollection ) layerCollection ).getAssignableLayerNames( supportMultiEdit );
+        }
+
         final ObservableList< String > layerNames = FXCollections.observableArrayList();
 
         // Preface the necessary "various" label for heterogeneous selections.
@@ -253,16 +333,17 @@ public final class LayerUtilities {
         }
 
         // Get the current name for each visible Layer. Enforce uniqueness.
+        // NOTE: The names are gathered in a set first, as searching the list
+        // for each Layer Name would take quadratic time.
+        final Set< String > assignableLayerNames = new LinkedHashSet<>( layerNames );
         for ( final LayerProperties layer : layerCollection ) {
             if ( layer.isLayerVisible() ) {
-                final String layerName = layer.getLayerName();
-                if ( ( layerName != null ) && !layerName.trim().isEmpty() ) {
-                    if ( !layerNames.contains( layerName ) ) {
-                        layerNames.add( layerName );
-                    }
+                if ( !layer.isLayerNameBlank() ) {
+                    assignableLayerNames.add( layer.getLayerName() );
                 }
             }
         }
+        layerNames.setAll( assignableLayerNames );
 
         return layerNames;
     }
@@ -271,6 +352,25 @@ public final class LayerUtilities {
         return layerCollection.get( DEFAULT_LAYER_INDEX );
     }
 
+    public static int getHiddenLayerCount( final ObservableList< LayerProperties > layerCollection ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            return ( ( LayerCollection ) layerCollection ).getHiddenLayerCount();
+        }
+
+        if ( layerCollection instanceof LayerTableCollection ) {
+            return getLayerTable( layerCollection ).getHiddenLayerCount();
+        }
+
+        int hiddenLayerCount = 0;
+        for ( final LayerProperties layer : layerCollection ) {
+            if ( !layer.isLayerVisible() ) {
+                hiddenLayerCount++;
+            }
+        }
+
+        return hiddenLayerCount;
+    }
+
     public static LayerProperties getLayer( final ObservableList< LayerProperties > layerCollection,
                                             final int layerIndex ) {
         return !isLayerIndexValid( layerCollection, layerIndex )
@@ -290,12 +390,28 @@ public final class LayerUtilities {
     // provided Layer Name, or the Default Layer if invalid Layer Name.
     public static LayerProperties getLayerByName( final ObservableList< LayerProperties > layerCollection,
                                                   final String layerName ) {
-        if ( ( layerCollection != null ) && ( layerName != null ) && !layerName.trim().isEmpty() ) {
-            for ( final LayerProperties layer : layerCollection ) {
-                if ( layer.getLayerName().equals( layerName ) ) {
+        if ( ( layerCollection != null ) && !isLayerNameBlank( layerName ) ) {
+            if ( layerCollection instanceof LayerCollection ) {
+                final LayerProperties layer = ( ( LayerCollection ) layerCollection )
+                        .getLayerByName( layerName );
+                if ( layer != null ) {
                     return layer;
                 }
             }
+            else if ( layerCollection instanceof LayerTableCollection ) {
+                // Only make a row view for the Layer that was asked for.
+                final int layerIndex = getLayerTable( layerCollection ).getLayerIndex( layerName );
+                if ( layerIndex >= 0 ) {
+                    return layerCollection.get( layerIndex );
+                }
+            }
+            else {
+                for ( final LayerProperties layer : layerCollection ) {
+                    if ( layer.getLayerName().equals( layerName ) ) {
+                        return layer;
+                    }
+                }
+            }
         }
 
         final LayerProperties defaultLayer = ( layerCollection != null )
@@ -346,16 +462,32 @@ public final class LayerUtilities {
 
     public static int getLayerIndex( final ObservableList< LayerProperties > layerCollection,
                                      final LayerProperties layer ) {
+        // NOTE: The indexed collection answers this from its position index
+        // rather than by searching the collection.
         return layerCollection.indexOf( layer );
     }
 
     public static int getLayerIndex( final ObservableList< LayerProperties > layerCollection,
                                      final String layerName ) {
+        if ( layerCollection instanceof LayerTableCollection ) {
+            // Look the row up by name, falling back to the Default Layer just
+            // as for any other collection, but without making a row view.
+            final int layerIndex = isLayerNameBlank( layerName )
+                ? -1
+                : getLayerTable( layerCollection ).getLayerIndex( layerName );
+            return ( layerIndex >= 0 ) ? layerIndex : DEFAULT_LAYER_INDEX;
+        }
+
         final LayerProperties layer = getLayerByName( layerCollection, layerName );
 
         return getLayerIndex( layerCollection, layer );
     }
 
+    // Get the Layer Table behind the flyweight collection.
+    private static LayerTable getLayerTable( final ObservableList< LayerProperties > layerCollection ) {
+        return ( ( LayerTableCollection ) layerCollection ).getLayerTable();
+    }
+
     // Get the next available Layer Name for a new Layer in the collection.
     public static String getNextAvailableLayerName( final ObservableList< LayerProperties > layerCollection ) {
         return getNextAvailableLayerName( LAYER_NAME_DEFAULT, layerCollection );
@@ -374,25 +506,74 @@ public final class LayerUtilities {
     public static String getNextAvailableLayerName( final String layerNameDefault,
                                                     final ObservableList< LayerProperties > layerCollection,
                                                     final int layerNumber ) {
-        // Recursively search for (and enforce) name-uniqueness of the next
-        // Layer Name using the current number as the basis.
+        // Search for (and enforce) name-uniqueness of the next Layer Name
+        // using the current number as the basis.
+        // NOTE: The indexed collection tracks which Layer Numbers are in use,
+        // so it can skip straight past the used ones.
+        if ( ( layerCollection instanceof LayerCollection ) && ( layerNumber >= 0 ) ) {
+            return ( ( LayerCollection ) layerCollection )
+                    .getNextAvailableLayerName( layerNameDefault, layerNumber );
+        }
+
+        int number = layerNumber;
         String nextAvailableLayerName = layerNameDefault + " " //$NON-NLS-1$
-                + Integer.toString( layerNumber );
-        for ( final LayerProperties layer : layerCollection ) {
-            final String layerName = layer.getLayerName();
-            if ( nextAvailableLayerName.equals( layerName ) ) {
-                // If the proposed name is not unique in the collection, bump
-                // the Layer Number recursively until unique.
-                nextAvailableLayerName = getNextAvailableLayerName( layerNameDefault,
-                                                                    layerCollection,
-                                                                    layerNumber + 1 );
-                break;
+                + Integer.toString( number );
+        final int excludeLayerIndex = -1;
+        if ( isLayerNameUnique( nextAvailableLayerName, layerCollection, excludeLayerIndex ) ) {
+            return nextAvailableLayerName;
+        }
+
+        // The flyweight collection can check each Layer Name from its Layer
+        // Table, without making row views.
+        if ( layerCollection instanceof LayerTableCollection ) {
+            final LayerTable layerTable = getLayerTable( layerCollection );
+            do {
+                number++;
+                nextAvailableLayerName = layerNameDefault + " " //$NON-NLS-1$
+                        + Integer.toString( number );
             }
+            while ( !layerTable.isLayerNameUnique( nextAvailableLayerName, excludeLayerIndex ) );
+
+            return nextAvailableLayerName;
+        }
+
+        // Gather the taken Layer Names just once, rather than rescanning the
+        // whole collection for each Layer Number that we try.
+        final Set< String > takenLayerNames = new HashSet<>( 2 * layerCollection.size() );
+        for ( final LayerProperties layer : layerCollection ) {
+            takenLayerNames.add( layer.getLayerName() );
         }
 
+        // If the proposed name is not unique in the collection, bump the Layer
+        // Number until unique.
+        do {
+            number++;
+            nextAvailableLayerName = layerNameDefault + " " //$NON-NLS-1$
+                    + Integer.toString( number );
+        }
+        while ( takenLayerNames.contains( nextAvailableLayerName ) );
+
         return nextAvailableLayerName;
     }
 
+    // Get the lowest uniquefier number, starting from the supplied number, for
+    // which the appendix-adjusted Layer Name candidate isn't already taken.
+    // NOTE: The taken Layer Names are held as normalized keys.
+    private static int getUniquefierNumber( final String layerNameCandidate,
+                                            final Set< String > takenLayerNameKeys,
+                                            final LayerNameNormalizer layerNameNormalizer,
+                                            final NumberFormat uniquefierNumberFormat,
+                                            final int uniquefierNumber ) {
+        int number = uniquefierNumber;
+        while ( takenLayerNameKeys.contains( layerNameNormalizer
+                .normalizeLayerName( layerNameCandidate + UniquefierAppendixCache
+                        .getUniquefierAppendix( number, uniquefierNumberFormat ) ) ) ) {
+            number++;
+        }
+
+        return number;
+    }
+
     public static String getUniqueLayerName( final String layerNameCandidate,
                                              final ObservableList< LayerProperties > layerCollection,
                                              final NumberFormat uniquefierNumberFormat,
@@ -411,33 +592,67 @@ public final class LayerUtilities {
                                              final NumberFormat uniquefierNumberFormat,
                                              final int uniquefierNumber,
                                              final int excludeLayerIndex ) {
-        // Recursively search for (and enforce) name-uniqueness of the supplied
-        // Layer Name candidate and uniquefier number.
-        // NOTE: We must loop from the start of the collection, in order to
+        // Search for (and enforce) name-uniqueness of the supplied Layer Name
+        // candidate and uniquefier number.
+        // NOTE: We must search from the lowest uniquefier number, in order to
         // allow for reuse of deleted names and to minimize or eliminate the
         // chance of holes in the numbering scheme.
-        final String uniquefierAppendix = TextUtilities
-                .getUniquefierAppendix( uniquefierNumber, uniquefierNumberFormat );
-        String layerName = layerNameCandidate + uniquefierAppendix;
-        for ( int layerIndex = 0, numberOfLayers = layerCollection
-                .size(); layerIndex < numberOfLayers; layerIndex++ ) {
-            if ( ( layerIndex != excludeLayerIndex )
-                    && layerName.equals( layerCollection.get( layerIndex ).getLayerName() ) ) {
-                // Recursively guarantee the appendix-adjusted name is also
-                // unique, using a hopefully-unique number as the appendix.
-                layerName = getUniqueLayerName( layerNameCandidate,
-                                                layerCollection,
-                                                uniquefierNumberFormat,
-                                                uniquefierNumber + 1,
-                                                excludeLayerIndex );
-                break;
+        if ( layerCollection instanceof LayerCollection ) {
+            // The indexed collection remembers which numbers are taken.
+            final LayerProperties excludeLayer = getLayer( layerCollection, excludeLayerIndex );
+            return ( ( LayerCollection ) layerCollection ).getUniqueLayerName( layerNameCandidate,
+                                                                             uniquefierNumberFormat,
+                                                                             uniquefierNumber,
+                                                                             excludeLayer );
+        }
+
+        if ( layerCollection instanceof LayerTableCollection ) {
+            // The flyweight collection checks its Layer Table's name index.
+            return getLayerTable( layerCollection ).getUniqueLayerName( layerNameCandidate,
+                                                                        uniquefierNumberFormat,
+                                                                        uniquefierNumber,
+                                                                        excludeLayerIndex );
+        }
+
+        int number = uniquefierNumber;
+        String layerName = layerNameCandidate
+                + UniquefierAppendixCache.getUniquefierAppendix( number, uniquefierNumberFormat );
+        if ( isLayerNameUnique( layerName, layerCollection, excludeLayerIndex ) ) {
+            return layerName;
+        }
+
+        // Gather the taken Layer Names just once, rather than rescanning the
+        // whole collection for each uniquefier number that we try.
+        final int numberOfLayers = layerCollection.size();
+        final Set< String > takenLayerNames = new HashSet<>( 2 * numberOfLayers );
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            if ( layerIndex != excludeLayerIndex ) {
+                takenLayerNames.add( layerCollection.get( layerIndex ).getLayerName() );
             }
         }
 
+        // Bump the uniquefier number until the appendix-adjusted name is
+        // also unique.
+        number = getUniquefierNumber( layerNameCandidate,
+                                      takenLayerNames,
+                                      LayerNameNormalizer.EXACT,
+                                      uniquefierNumberFormat,
+                                      number + 1 );
+        layerName = layerNameCandidate
+                + UniquefierAppendixCache.getUniquefierAppendix( number, uniquefierNumberFormat );
+
         return layerName;
     }
 
     public static boolean hasActiveLayer( final ObservableList< LayerProperties > layerCollection ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            return ( ( LayerCollection ) layerCollection ).hasActiveLayer();
+        }
+
+        if ( layerCollection instanceof LayerTableCollection ) {
+            return getLayerTable( layerCollection ).getActiveLayerIndex() >= 0;
+        }
+
         for ( final LayerProperties layer : layerCollection ) {
             if ( layer.isLayerActive() ) {
                 return true;
@@ -451,6 +666,15 @@ public final class LayerUtilities {
                                     final LayerProperties referenceLayer ) {
         final String referenceLayerName = referenceLayer.getLayerName();
 
+        if ( layerCollection instanceof LayerCollection ) {
+            return ( referenceLayerName != null )
+                    && ( ( LayerCollection ) layerCollection ).hasLayer( referenceLayer );
+        }
+
+        if ( layerCollection instanceof LayerTableCollection ) {
+            return getLayerTable( layerCollection ).hasLayer( referenceLayerName );
+        }
+
         for ( final LayerProperties layer : layerCollection ) {
             if ( layer.getLayerName().equals( referenceLayerName ) ) {
                 return true;
@@ -474,6 +698,94 @@ public final class LayerUtilities {
         return layerCandidate;
     }
 
+    // Import a batch of Layer candidates, enforcing name-uniqueness of each
+    // against the collection and against the rest of the batch, just as
+    // addLayer() does for a single Layer. All of the Layers are added at once,
+    // so that listeners only get a single change for the whole batch.
+    public static List< LayerProperties > importLayers( final ObservableList< LayerProperties > layerCollection,
+                                                        final Collection< LayerProperties > layerCandidates,
+                                                        final NumberFormat uniquefierNumberFormat ) {
+        // Gather the taken Layer Names once, and then add each newly resolved
+        // name, so that conflicts within the batch get resolved as well.
+        // NOTE: The indexed collection may treat differing Layer Names as the
+        // same Layer Name, so the taken names are held as normalized keys.
+        final LayerNameNormalizer layerNameNormalizer = ( layerCollection instanceof LayerCollection )
+            ? ( ( LayerCollection ) layerCollection ).getLayerNameNormalizer()
+            : LayerNameNormalizer.EXACT;
+        final Set< String > takenLayerNameKeys = new HashSet<>( 2 * ( layerCollection.size()
+                + layerCandidates.size() ) );
+        for ( final LayerProperties layer : layerCollection ) {
+            takenLayerNameKeys.add( layerNameNormalizer.normalizeLayerName( layer.getLayerName() ) );
+        }
+
+        // Remember where the search for each Layer Name candidate left off, as
+        // names are only ever added during the import, so there is no need to
+        // re-check the lower numbers when the same candidate comes up again.
+        final Map< String, int[] > uniquefierNumbersByCandidate = new HashMap<>();
+
+        final List< LayerProperties > importedLayers = new ArrayList<>( layerCandidates.size() );
+        for ( final LayerProperties layerCandidate : layerCandidates ) {
+            // Prevent exceptions by filtering for null objects.
+            if ( layerCandidate == null ) {
+                continue;
+            }
+
+            // Use the cached Layer Name if it exists and is non-empty;
+            // otherwise apply the uniquefied Layer Name Default, always with a
+            // uniquefier appendix so that none of them are unadorned.
+            String layerNameCandidate = layerCandidate.getLayerName();
+            int startNumber = 0;
+            if ( layerCandidate.isLayerNameBlank() ) {
+                layerNameCandidate = LAYER_NAME_DEFAULT;
+                startNumber = 1;
+            }
+
+            // NOTE: The search history is only good for the same start number.
+            int[] searchHistory = uniquefierNumbersByCandidate.get( layerNameCandidate );
+            if ( ( searchHistory == null ) || ( searchHistory[ 0 ] != startNumber ) ) {
+                searchHistory = new int[] { startNumber, startNumber };
+                uniquefierNumbersByCandidate.put( layerNameCandidate, searchHistory );
+            }
+
+            final int uniquefierNumber = getUniquefierNumber( layerNameCandidate,
+                                                              takenLayerNameKeys,
+                                                              layerNameNormalizer,
+                                                              uniquefierNumberFormat,
+                                                              searchHistory[ 1 ] );
+            final String layerName = layerNameCandidate + UniquefierAppendixCache
+                    .getUniquefierAppendix( uniquefierNumber, uniquefierNumberFormat );
+            takenLayerNameKeys.add( layerNameNormalizer.normalizeLayerName( layerName ) );
+            searchHistory[ 1 ] = uniquefierNumber + 1;
+
+            // Reset the Layer Name candidate, in case it changed.
+            layerCandidate.setLayerName( layerName );
+            importedLayers.add( layerCandidate );
+        }
+
+        // Now that we have dealt with name-uniqueness, add all of the Layer
+        // candidates to the Layer Collection in one go.
+        layerCollection.addAll( importedLayers );
+
+        return importedLayers;
+    }
+
+    // Show the Hidden Layers and hide the Visible Layers.
+    public static void invertLayerVisibility( final ObservableList< LayerProperties > layerCollection ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            ( ( LayerCollection ) layerCollection ).invertLayerVisibility();
+            return;
+        }
+
+        final BitSet visibleLayerPositions = new BitSet();
+        for ( int layerIndex = 0, numberOfLayers = layerCollection
+                .size(); layerIndex < numberOfLayers; layerIndex++ ) {
+            if ( isLayerHidden( layerCollection, layerIndex ) ) {
+                visibleLayerPositions.set( layerIndex );
+            }
+        }
+        setVisibleLayerPositions( layerCollection, visibleLayerPositions );
+    }
+
     public static boolean isLayerHidden( final ObservableList< LayerProperties > layerCollection,
                                          final int layerIndex ) {
         final LayerProperties layer = layerCollection.get( layerIndex );
@@ -486,10 +798,39 @@ public final class LayerUtilities {
                 && ( layerIndex < layerCollection.size() );
     }
 
+    // Find out whether a Layer Name is null, empty, or only white space (using
+    // the same definition of white space as String.trim()), without making a
+    // trimmed copy of the Layer Name.
+    public static boolean isLayerNameBlank( final String layerName ) {
+        if ( layerName == null ) {
+            return true;
+        }
+
+        for ( int charIndex = 0, numberOfChars = layerName
+                .length(); charIndex < numberOfChars; charIndex++ ) {
+            if ( layerName.charAt( charIndex ) > ' ' ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public static boolean isLayerNameUnique( final String layerNameCandidate,
                                              final ObservableList< LayerProperties > layerCollection,
                                              final int excludeLayerIndex ) {
         // Determine name-uniqueness of the supplied Layer Name candidate.
+        if ( layerCollection instanceof LayerCollection ) {
+            final LayerProperties excludeLayer = getLayer( layerCollection, excludeLayerIndex );
+            return ( ( LayerCollection ) layerCollection ).isLayerNameUnique( layerNameCandidate,
+                                                                            excludeLayer );
+        }
+
+        if ( layerCollection instanceof LayerTableCollection ) {
+            return getLayerTable( layerCollection ).isLayerNameUnique( layerNameCandidate,
+                                                                       excludeLayerIndex );
+        }
+
         for ( int layerIndex = 0, numberOfLayers = layerCollection
                 .size(); layerIndex < numberOfLayers; layerIndex++ ) {
             if ( ( layerIndex != excludeLayerIndex ) && layerNameCandidate
@@ -501,6 +842,19 @@ public final class LayerUtilities {
         return true;
     }
 
+    // Hide every Layer except for the one at the supplied index, such as for
+    // working on one Layer in isolation.
+    public static void isolateLayer( final ObservableList< LayerProperties > layerCollection,
+                                     final int layerIndex ) {
+        if ( !isLayerIndexValid( layerCollection, layerIndex ) ) {
+            return;
+        }
+
+        final BitSet visibleLayerPositions = new BitSet();
+        visibleLayerPositions.set( layerIndex );
+        setVisibleLayerPositions( layerCollection, visibleLayerPositions );
+    }
+
     public static LayerProperties makeDefaultLayer() {
         final LayerProperties defaultLayer = new LayerProperties( DEFAULT_LAYER_NAME,
                                                                   LAYER_COLOR_DEFAULT,
@@ -510,23 +864,57 @@ public final class LayerUtilities {
         return defaultLayer;
     }
 
+    // Make a Layer Collection that indexes its Layers by Layer Name, so that
+    // name-based lookups don't have to scan the collection.
+    public static LayerCollection makeIndexedLayerCollection() {
+        return makeIndexedLayerCollection( LayerNameNormalizer.EXACT );
+    }
+
+    // Make a Layer Collection that indexes its Layers by normalized Layer
+    // Name, so that name-based lookups and uniqueness checks treat all Layer
+    // Names with the same normalized form as the same Layer Name.
+    public static LayerCollection makeIndexedLayerCollection( final LayerNameNormalizer layerNameNormalizer ) {
+        return makeIndexedLayerCollection( layerNameNormalizer, EnumSet.allOf( LayerField.class ) );
+    }
+
+    // Make an indexed Layer Collection that only reports edits to the watched
+    // fields, as for makeLayerCollection( Set ), and that only listens to the
+    // unwatched fields that its lookup indices depend on.
+    public static LayerCollection makeIndexedLayerCollection( final LayerNameNormalizer layerNameNormalizer,
+                                                              final Set< LayerField > watchedLayerFields ) {
+        final LayerCollection layerCollection = new LayerCollection( layerNameNormalizer,
+                                                                     watchedLayerFields );
+
+        // Set the collection to initially only contain the Default Layer.
+        resetLayerCollection( layerCollection );
+
+        return layerCollection;
+    }
+
     public static ObservableList< LayerProperties > makeLayerCollection() {
+        return makeLayerCollection( EnumSet.allOf( LayerField.class ) );
+    }
+
+    // Make a Layer Collection that only reports edits to the watched fields,
+    // such as just the Visible and Active Status for a canvas, so that list
+    // listeners aren't bothered with edits that they would ignore anyway and
+    // each Layer only costs one property listener per watched field.
+    public static ObservableList< LayerProperties > makeLayerCollection( final Set< LayerField > watchedLayerFields ) {
         // Use the extractor pattern to ensure that edits to the specified
         // properties trigger list change events, as otherwise only adding to
         // and from the list does so, as it doesn't look at the granularity of
         // the observable properties below.
+        final LayerField[] watchedFields = watchedLayerFields
+                .toArray( new LayerField[ watchedLayerFields.size() ] );
         final ObservableList< LayerProperties > layerCollection = FXCollections
-                .observableArrayList( layerProperties -> new Observable[] {
-                                                                            layerProperties
-                                                                                    .layerNameProperty(),
-                                                                            layerProperties
-                                                                                    .layerColorProperty(),
-                                                                            layerProperties
-                                                                                    .layerActiveProperty(),
-                                                                            layerProperties
-                                                                                    .layerVisibleProperty(),
-                                                                            layerProperties
-                                                                                    .layerLockedProperty() } );
+                .observableArrayList( layerProperties -> {
+                    final Observable[] layerPropertyDependencies = new Observable[ watchedFields.length ];
+                    for ( int i = 0; i < watchedFields.length; i++ ) {
+                        layerPropertyDependencies[ i ] = watchedFields[ i ]
+                                .getLayerProperty( layerProperties );
+                    }
+                    return layerPropertyDependencies;
+                } );
 
         // Set the collection to initially only contain the Default Layer.
         resetLayerCollection( layerCollection );
@@ -534,6 +922,13 @@ public final class LayerUtilities {
         return layerCollection;
     }
 
+    // Make a flyweight Layer Collection, which keeps its Layers in a compact
+    // Layer Table and only makes Layers for the rows that are asked for, such
+    // as for the visible rows of a table view over a very large drawing.
+    public static LayerTableCollection makeLayerTableCollection() {
+        return new LayerTableCollection();
+    }
+
     public static LayerProperties makeTempLayer() {
         final LayerProperties defaultLayer = new LayerProperties( TEMP_LAYER_NAME,
                                                                   LAYER_COLOR_DEFAULT,
@@ -557,6 +952,25 @@ public final class LayerUtilities {
         layerCollection.setAll( defaultLayer );
     }
 
+    // Restore every Layer captured by the supplied Layer State, writing only
+    // the values that differ, and then enforce the Hidden Layer Policy once.
+    // NOTE: The indexed collection reports all of the edits as a single
+    // change; other collections report each edit separately.
+    public static void restoreLayerState( final ObservableList< LayerProperties > layerCollection,
+                                          final LayerState layerState ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            ( ( LayerCollection ) layerCollection ).restoreLayerState( layerState );
+            return;
+        }
+
+        for ( final LayerProperties layer : layerCollection ) {
+            layerState.restoreLayer( layer );
+        }
+        if ( !layerCollection.isEmpty() ) {
+            enforceHiddenLayerPolicy( layerCollection );
+        }
+    }
+
     public static void setActiveLayer( final LayerProperties activeLayer ) {
         if ( !activeLayer.isLayerActive() ) {
             activeLayer.setLayerActive( true );
@@ -583,6 +997,46 @@ public final class LayerUtilities {
         return setActiveLayer( layerCollection, DEFAULT_LAYER_INDEX );
     }
 
+    // Show the Layers at the supplied positions and hide the rest, enforcing
+    // the Hidden Layer Policy once for all of them, as it only depends on
+    // whether the Active Layer ends up Hidden.
+    // NOTE: The indexed collection reports all of the edits as a single
+    // change; other collections report each edit separately.
+    public static void setVisibleLayerPositions( final ObservableList< LayerProperties > layerCollection,
+                                                 final BitSet visibleLayerPositions ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            ( ( LayerCollection ) layerCollection )
+                    .setVisibleLayerPositions( visibleLayerPositions );
+            return;
+        }
+
+        boolean visibilityChanged = false;
+        for ( int layerIndex = 0, numberOfLayers = layerCollection
+                .size(); layerIndex < numberOfLayers; layerIndex++ ) {
+            final LayerProperties layer = layerCollection.get( layerIndex );
+            final boolean layerVisible = visibleLayerPositions.get( layerIndex );
+            if ( layerVisible != layer.isLayerVisible() ) {
+                layer.setLayerVisible( layerVisible );
+                visibilityChanged = true;
+            }
+        }
+        if ( visibilityChanged ) {
+            enforceHiddenLayerPolicy( layerCollection );
+        }
+    }
+
+    // Show every Layer.
+    public static void showAllLayers( final ObservableList< LayerProperties > layerCollection ) {
+        if ( layerCollection instanceof LayerCollection ) {
+            ( ( LayerCollection ) layerCollection ).showAllLayers();
+            return;
+        }
+
+        final BitSet visibleLayerPositions = new BitSet();
+        visibleLayerPositions.set( 0, layerCollection.size() );
+        setVisibleLayerPositions( layerCollection, visibleLayerPositions );
+    }
+
     // NOTE: This method and its calling hierarchy might be safer if they
     // index into the cached collection vs. using the table view itself.
     public static void uniquefyLayerName( final String layerNameCandidate,
@@ -606,7 +1060,19 @@ public final class LayerUtilities {
         // If user edits were dismissed -- resulting in no consequent change
         // from the pre-edit state -- pre-cache the unadjusted, candidate value,
         // as otherwise we can miss some view-syncing due to no "changed" event.
+        // NOTE: The indexed collection can report the Layer as updated without
+        // changing it, so there's no need to set the Layer Name twice.
         final boolean layerNameChanged = !newLayerName.equals( oldLayerName );
+        if ( layerCollection instanceof LayerCollection ) {
+            if ( layerNameChanged ) {
+                layerProperties.setLayerName( newLayerName );
+            }
+            else {
+                ( ( LayerCollection ) layerCollection ).refreshLayer( layerIndex );
+            }
+            return;
+        }
+
         if ( !layerNameChanged ) {
             layerProperties.setLayerName( layerNameCandidate );
         }
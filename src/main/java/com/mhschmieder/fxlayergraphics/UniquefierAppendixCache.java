@@ -0,0 +1,113 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics;
+
+import java.text.NumberFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.mhschmieder.commonstoolkit.text.TextUtilities;
+
+// Cache of uniquefier appendices, keyed by number format and uniquefier number,
+// as formatting them anew for every uniquefication attempt is a significant
+// cost when importing large numbers of Layers.
+// NOTE: Number formats are not thread-safe, so each cached format is a private
+// copy of the caller's format, which is only ever used while locked. This also
+// guards the cache against later edits to the caller's format. The cache can
+// therefore be shared freely across worker threads.
+public final class UniquefierAppendixCache {
+
+    // Declare the range of uniquefier numbers whose appendices are cached.
+    public static final int MAXIMUM_CACHED_UNIQUEFIER_NUMBER = 1023;
+
+    // The cached appendices for one number format.
+    private static final class FormatAppendices {
+
+        private final NumberFormat                   uniquefierNumberFormat;
+        private final AtomicReferenceArray< String > uniquefierAppendices;
+
+        private FormatAppendices( final NumberFormat pUniquefierNumberFormat ) {
+            uniquefierNumberFormat = pUniquefierNumberFormat;
+            uniquefierAppendices = new AtomicReferenceArray<>( MAXIMUM_CACHED_UNIQUEFIER_NUMBER
+                    + 1 );
+        }
+
+        private String formatUniquefierAppendix( final int uniquefierNumber ) {
+            synchronized ( uniquefierNumberFormat ) {
+                return TextUtilities.getUniquefierAppendix( uniquefierNumber,
+                                                            uniquefierNumberFormat );
+            }
+        }
+
+    }
+
+    // Map each number format (by value) to its cached appendices.
+    private static final ConcurrentMap< NumberFormat, FormatAppendices > APPENDICES_BY_FORMAT =
+                                                                                         new ConcurrentHashMap<>();
+
+    // Get the uniquefier appendix for the supplied uniquefier number, exactly
+    // as TextUtilities.getUniquefierAppendix() would format it.
+    public static String getUniquefierAppendix( final int uniquefierNumber,
+                                                final NumberFormat uniquefierNumberFormat ) {
+        // Leave the unusual cases to the uncached formatter.
+        if ( uniquefierNumberFormat == null ) {
+            return TextUtilities.getUniquefierAppendix( uniquefierNumber,
+                                                        uniquefierNumberFormat );
+        }
+
+        FormatAppendices formatAppendices = APPENDICES_BY_FORMAT.get( uniquefierNumberFormat );
+        if ( formatAppendices == null ) {
+            final NumberFormat uniquefierNumberFormatCopy = ( NumberFormat ) uniquefierNumberFormat
+                    .clone();
+            formatAppendices = APPENDICES_BY_FORMAT
+                    .computeIfAbsent( uniquefierNumberFormatCopy, FormatAppendices::new );
+        }
+
+        if ( ( uniquefierNumber < 0 ) || ( uniquefierNumber > MAXIMUM_CACHED_UNIQUEFIER_NUMBER ) ) {
+            return formatAppendices.formatUniquefierAppendix( uniquefierNumber );
+        }
+
+        // NOTE: Two threads may both format a missing appendix, but they get
+        // the same result, so it doesn't matter which one gets cached.
+        String uniquefierAppendix = formatAppendices.uniquefierAppendices.get( uniquefierNumber );
+        if ( uniquefierAppendix == null ) {
+            uniquefierAppendix = formatAppendices.formatUniquefierAppendix( uniquefierNumber );
+            formatAppendices.uniquefierAppendices.set( uniquefierNumber, uniquefierAppendix );
+        }
+
+        return uniquefierAppendix;
+    }
+
+    // NOTE: The constructor is disabled, as this is a static class.
+    private UniquefierAppendixCache() {}
+
+}
@@ -0,0 +1,268 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ModifiableObservableListBase;
+
+// The common base of the Layer Collections that can hold back their edits in
+// transactions, which takes over the structural edits while a transaction is
+// open, so that they can be reported as part of a single well-formed change
+// when the transaction is closed.
+// NOTE: JavaFX's own change builder can't always merge a mix of additions,
+// removals and updates into a change that replays correctly, so while a
+// transaction is open, edits are logged here rather than passed on to it.
+public abstract class AbstractLayerCollection extends ModifiableObservableListBase< LayerProperties > {
+
+    // The number of transactions that are open, as they may be nested.
+    private int                 transactionDepth;
+
+    // The edits made since the outermost transaction was opened, or null if
+    // no transaction is open.
+    private LayerTransactionLog transactionLog;
+
+    protected AbstractLayerCollection() {
+        transactionDepth = 0;
+        transactionLog = null;
+    }
+
+    @Override
+    public void add( final int index, final LayerProperties layer ) {
+        if ( transactionLog == null ) {
+            super.add( index, layer );
+            return;
+        }
+
+        checkPositionIndex( index );
+        transactionLog.coverRows( index, index );
+        doAdd( index, layer );
+        transactionLog.rowsAdded( 1 );
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll( final Collection< ? extends LayerProperties > layers ) {
+        return addAll( size(), layers );
+    }
+
+    @Override
+    public boolean addAll( final int index, final Collection< ? extends LayerProperties > layers ) {
+        if ( transactionLog == null ) {
+            return super.addAll( index, layers );
+        }
+
+        checkPositionIndex( index );
+        int layerIndex = index;
+        for ( final Object layer : layers.toArray() ) {
+            add( layerIndex++, ( LayerProperties ) layer );
+        }
+
+        return layerIndex > index;
+    }
+
+    // Begin a transaction, during which all edits are held back from list
+    // change listeners until the transaction is closed.
+    public LayerTransaction beginTransaction() {
+        return new LayerTransaction( this );
+    }
+
+    // Get the Layer at the supplied row, to report as removed if the row is
+    // replaced or removed during a transaction.
+    abstract LayerProperties getLayerForRemoval( int index );
+
+    // Get the log of the edits made during the open transaction, or null if
+    // no transaction is open.
+    LayerTransactionLog getTransactionLog() {
+        return transactionLog;
+    }
+
+    // Report the supplied row as updated, either as part of the open
+    // transaction or as part of the current change.
+    void nextLayerUpdate( final int index ) {
+        if ( transactionLog != null ) {
+            transactionLog.rowUpdated( index );
+        }
+        else {
+            nextUpdate( index );
+        }
+    }
+
+    @Override
+    public LayerProperties remove( final int index ) {
+        if ( transactionLog == null ) {
+            return super.remove( index );
+        }
+
+        checkElementIndex( index );
+        transactionLog.coverRows( index, index + 1 );
+        final LayerProperties layer = doRemove( index );
+        transactionLog.rowsRemoved( 1 );
+        modCount++;
+
+        return layer;
+    }
+
+    @Override
+    public boolean remove( final Object object ) {
+        if ( transactionLog == null ) {
+            return super.remove( object );
+        }
+
+        final int index = indexOf( object );
+        if ( index < 0 ) {
+            return false;
+        }
+
+        remove( index );
+        return true;
+    }
+
+    @Override
+    public boolean removeAll( final Collection< ? > layers ) {
+        if ( transactionLog == null ) {
+            return super.removeAll( layers );
+        }
+
+        boolean removed = false;
+        for ( int index = size() - 1; index >= 0; index-- ) {
+            if ( layers.contains( get( index ) ) ) {
+                remove( index );
+                removed = true;
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    protected void removeRange( final int fromIndex, final int toIndex ) {
+        if ( transactionLog == null ) {
+            super.removeRange( fromIndex, toIndex );
+            return;
+        }
+
+        checkRange( fromIndex, toIndex );
+        transactionLog.coverRows( fromIndex, toIndex );
+        for ( int index = fromIndex; index < toIndex; index++ ) {
+            doRemove( fromIndex );
+        }
+        transactionLog.rowsRemoved( toIndex - fromIndex );
+        modCount++;
+    }
+
+    @Override
+    public boolean retainAll( final Collection< ? > layers ) {
+        if ( transactionLog == null ) {
+            return super.retainAll( layers );
+        }
+
+        boolean removed = false;
+        for ( int index = size() - 1; index >= 0; index-- ) {
+            if ( !layers.contains( get( index ) ) ) {
+                remove( index );
+                removed = true;
+            }
+        }
+
+        return removed;
+    }
+
+    @Override
+    public LayerProperties set( final int index, final LayerProperties layer ) {
+        if ( transactionLog == null ) {
+            return super.set( index, layer );
+        }
+
+        checkElementIndex( index );
+        transactionLog.coverRows( index, index + 1 );
+        return doSet( index, layer );
+    }
+
+    @Override
+    public boolean setAll( final Collection< ? extends LayerProperties > layers ) {
+        if ( transactionLog == null ) {
+            return super.setAll( layers );
+        }
+
+        final LayerProperties[] newLayers = layers.toArray( new LayerProperties[ layers.size() ] );
+        removeRange( 0, size() );
+        addAll( 0, Arrays.asList( newLayers ) );
+
+        return true;
+    }
+
+    // NOTE: Only the outermost transaction reports the edits, as a single
+    // change that covers all of them.
+    void transactionClosed() {
+        transactionDepth--;
+        if ( transactionDepth > 0 ) {
+            return;
+        }
+
+        final LayerTransactionLog closedTransactionLog = transactionLog;
+        transactionLog = null;
+        final ListChangeListener.Change< LayerProperties > change = closedTransactionLog
+                .makeChange();
+        if ( change != null ) {
+            fireChange( change );
+        }
+    }
+
+    void transactionOpened() {
+        if ( transactionDepth == 0 ) {
+            transactionLog = new LayerTransactionLog( this, this::getLayerForRemoval );
+        }
+        transactionDepth++;
+    }
+
+    private void checkElementIndex( final int index ) {
+        if ( ( index < 0 ) || ( index >= size() ) ) {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private void checkPositionIndex( final int index ) {
+        if ( ( index < 0 ) || ( index > size() ) ) {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " + size() ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+    private void checkRange( final int fromIndex, final int toIndex ) {
+        if ( ( fromIndex < 0 ) || ( toIndex > size() ) || ( fromIndex > toIndex ) ) {
+            throw new IndexOutOfBoundsException( "From Index: " + fromIndex + ", To Index: " //$NON-NLS-1$ //$NON-NLS-2$
+                    + toIndex + ", Size: " + size() ); //$NON-NLS-1$
+        }
+    }
+
+}
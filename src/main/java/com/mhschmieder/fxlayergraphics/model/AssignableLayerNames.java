@@ -0,0 +1,348 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.WeakListChangeListener;
+
+// Assignable Layer Names, as an observable list (suitable for a property sheet
+// drop-list) of the distinct names of the Visible Layers in a Layer Collection,
+// in collection order and optionally prefaced by the "various" label used for
+// heterogeneous selections. The list is kept current as the collection changes,
+// so that it doesn't have to be rebuilt each time a property sheet is opened.
+// NOTE: Visibility and Layer Name edits are only seen if the collection reports
+// them as updates, which is the case for LayerCollection and for the collection
+// made by LayerUtilities.makeLayerCollection().
+public final class AssignableLayerNames {
+
+    // Rebuild from scratch rather than patching in place when a change affects
+    // more than this many Layers, as patching can cost up to a search of the
+    // collection per Layer whereas rebuilding costs one search in total.
+    private static final int                            MAXIMUM_PATCHED_LAYER_COUNT = 16;
+
+    // A listed Layer Name, along with how many Layers contribute it.
+    private static final class LayerNameEntry {
+
+        // The number of Layers that contribute the Layer Name.
+        private int contributorCount;
+
+        // The position of the Layer Name in the list, or -1 while it is being
+        // added to the list.
+        private int position;
+
+        private LayerNameEntry() {
+            contributorCount = 0;
+            position = -1;
+        }
+
+    }
+
+    private final ObservableList< LayerProperties >     layerCollection;
+    private final boolean                               supportMultiEdit;
+    private final ObservableList< String >              layerNames;
+    private final ObservableList< String >              unmodifiableLayerNames;
+
+    // Keep the Layer Name contributed by each Layer, or null if none, in the
+    // same order as the Layer Collection, so that we still know what to take
+    // out when a Layer is removed or edited.
+    private final List< String >                        contributedLayerNames;
+
+    // Map each listed Layer Name to its position and contributor count, so
+    // that Layer Names can be found in the list without searching it.
+    // NOTE: The positions are kept in step with the list, so each edit to the
+    // list costs as much again, but no more, to keep them current.
+    private final Map< String, LayerNameEntry >         layerNameEntries;
+
+    // NOTE: The collection only holds this listener weakly, so that discarded
+    // Layer Name lists don't linger for as long as the collection does.
+    private final ListChangeListener< LayerProperties > layerCollectionListener;
+
+    public AssignableLayerNames( final ObservableList< LayerProperties > pLayerCollection,
+                                 final boolean pSupportMultiEdit ) {
+        layerCollection = Objects.requireNonNull( pLayerCollection, "layerCollection" ); //$NON-NLS-1$
+        supportMultiEdit = pSupportMultiEdit;
+        layerNames = FXCollections.observableArrayList();
+        unmodifiableLayerNames = FXCollections.unmodifiableObservableList( layerNames );
+        contributedLayerNames = new ArrayList<>();
+        layerNameEntries = new HashMap<>();
+
+        layerCollectionListener = this::layerCollectionChanged;
+        layerCollection.addListener( new WeakListChangeListener<>( layerCollectionListener ) );
+
+        rebuildLayerNames();
+    }
+
+    // Get the live list of assignable Layer Names.
+    public ObservableList< String > getLayerNames() {
+        return unmodifiableLayerNames;
+    }
+
+    public boolean isSupportMultiEdit() {
+        return supportMultiEdit;
+    }
+
+    // Get the Layer Name that the supplied Layer contributes, or null if the
+    // Layer is Hidden or has a blank Layer Name.
+    private String getContributedLayerName( final LayerProperties layer ) {
+        if ( !layer.isLayerVisible() || layer.isLayerNameBlank() ) {
+            return null;
+        }
+
+        // NOTE: A Layer that happens to be named the same as the "various"
+        // label is already covered by the label.
+        final String layerName = layer.getLayerName();
+        return ( supportMultiEdit && LayerUtilities.VARIOUS_LAYER_NAME.equals( layerName ) )
+            ? null
+            : layerName;
+    }
+
+    // Get the position that the supplied Layer Name belongs at, which is just
+    // after every Layer Name that is first contributed earlier in the collection,
+    // counting the supplied Layer Name itself if it is already listed there.
+    private int getLayerNamePosition( final String layerName ) {
+        int lastPrecedingPosition = getLayerNamesOffset() - 1;
+        for ( final String contributedLayerName : contributedLayerNames ) {
+            if ( layerName.equals( contributedLayerName ) ) {
+                break;
+            }
+            if ( contributedLayerName != null ) {
+                lastPrecedingPosition = Math.max( lastPrecedingPosition,
+                                                  layerNameEntries
+                                                          .get( contributedLayerName ).position );
+            }
+        }
+
+        return lastPrecedingPosition + 1;
+    }
+
+    private int getLayerNamesOffset() {
+        return supportMultiEdit ? 1 : 0;
+    }
+
+    private void layerAdded( final int index, final LayerProperties layer ) {
+        final String layerName = getContributedLayerName( layer );
+        contributedLayerNames.add( index, layerName );
+        if ( layerName != null ) {
+            layerNameAdded( layerName, index );
+        }
+    }
+
+    private void layerCollectionChanged( final ListChangeListener.Change< ? extends LayerProperties > change ) {
+        // Large or reordering changes are cheaper to handle by rebuilding.
+        int affectedLayerCount = 0;
+        while ( change.next() ) {
+            if ( change.wasPermutated() ) {
+                affectedLayerCount = Integer.MAX_VALUE;
+                break;
+            }
+            affectedLayerCount += change.wasUpdated()
+                ? change.getTo() - change.getFrom()
+                : change.getRemovedSize() + change.getAddedSize();
+        }
+        if ( affectedLayerCount > MAXIMUM_PATCHED_LAYER_COUNT ) {
+            rebuildLayerNames();
+            return;
+        }
+
+        change.reset();
+        while ( change.next() ) {
+            if ( change.wasUpdated() ) {
+                for ( int layerIndex = change.getFrom(); layerIndex < change
+                        .getTo(); layerIndex++ ) {
+                    layerUpdated( layerIndex, change.getList().get( layerIndex ) );
+                }
+            }
+            else {
+                for ( int i = 0; i < change.getRemovedSize(); i++ ) {
+                    layerRemoved( change.getFrom() );
+                }
+                int layerIndex = change.getFrom();
+                for ( final LayerProperties layer : change.getAddedSubList() ) {
+                    layerAdded( layerIndex++, layer );
+                }
+            }
+        }
+    }
+
+    private void layerNameAdded( final String layerName, final int index ) {
+        final LayerNameEntry layerNameEntry = layerNameEntries
+                .computeIfAbsent( layerName, key -> new LayerNameEntry() );
+        final boolean lastLayer = index == ( contributedLayerNames.size() - 1 );
+        if ( ++layerNameEntry.contributorCount == 1 ) {
+            // NOTE: A Layer Name that is new as of the last Layer (such as when
+            // adding a Layer) always goes last, so there's no need to search.
+            listLayerName( lastLayer ? layerNames.size() : getLayerNamePosition( layerName ),
+                           layerName,
+                           layerNameEntry );
+        }
+        else if ( !lastLayer ) {
+            // The added Layer might now be the first to contribute this name.
+            repositionLayerName( layerName, layerNameEntry );
+        }
+    }
+
+    private void layerNameRemoved( final String layerName ) {
+        final LayerNameEntry layerNameEntry = layerNameEntries.get( layerName );
+        if ( --layerNameEntry.contributorCount == 0 ) {
+            layerNameEntries.remove( layerName );
+            unlistLayerName( layerNameEntry.position );
+        }
+        else {
+            // The removed Layer might have been the first to contribute this
+            // name.
+            repositionLayerName( layerName, layerNameEntry );
+        }
+    }
+
+    private void layerRemoved( final int index ) {
+        final String layerName = contributedLayerNames.remove( index );
+        if ( layerName != null ) {
+            layerNameRemoved( layerName );
+        }
+    }
+
+    private void layerUpdated( final int index, final LayerProperties layer ) {
+        final String oldLayerName = contributedLayerNames.get( index );
+        final String layerName = getContributedLayerName( layer );
+        if ( Objects.equals( oldLayerName, layerName ) ) {
+            return;
+        }
+
+        // Renaming the only Layer with its name to a name not already listed
+        // can simply rename the entry, as it stays in the same position.
+        if ( ( oldLayerName != null ) && ( layerName != null )
+                && ( layerNameEntries.get( oldLayerName ).contributorCount == 1 )
+                && !layerNameEntries.containsKey( layerName ) ) {
+            final LayerNameEntry layerNameEntry = layerNameEntries.remove( oldLayerName );
+            layerNameEntries.put( layerName, layerNameEntry );
+            contributedLayerNames.set( index, layerName );
+            layerNames.set( layerNameEntry.position, layerName );
+            return;
+        }
+
+        // NOTE: Each step must leave the contributed Layer Names matching the
+        // listed ones, as repositioning relies on this.
+        if ( oldLayerName != null ) {
+            contributedLayerNames.set( index, null );
+            layerNameRemoved( oldLayerName );
+        }
+        contributedLayerNames.set( index, layerName );
+        if ( layerName != null ) {
+            layerNameAdded( layerName, index );
+        }
+    }
+
+    // Put the supplied Layer Name in the list at the supplied position, moving
+    // the later Layer Names along.
+    private void listLayerName( final int position,
+                                final String layerName,
+                                final LayerNameEntry layerNameEntry ) {
+        layerNames.add( position, layerName );
+        layerNameEntry.position = position;
+        shiftLayerNamePositions( position + 1, layerNames.size(), 1 );
+    }
+
+    private void rebuildLayerNames() {
+        contributedLayerNames.clear();
+        layerNameEntries.clear();
+
+        // Preface the necessary "various" label for heterogeneous selections.
+        final Set< String > assignableLayerNames = new LinkedHashSet<>();
+        if ( supportMultiEdit ) {
+            assignableLayerNames.add( LayerUtilities.VARIOUS_LAYER_NAME );
+        }
+
+        for ( final LayerProperties layer : layerCollection ) {
+            final String layerName = getContributedLayerName( layer );
+            contributedLayerNames.add( layerName );
+            if ( layerName != null ) {
+                final LayerNameEntry layerNameEntry = layerNameEntries
+                        .computeIfAbsent( layerName, key -> new LayerNameEntry() );
+                if ( layerNameEntry.contributorCount++ == 0 ) {
+                    layerNameEntry.position = assignableLayerNames.size();
+                    assignableLayerNames.add( layerName );
+                }
+            }
+        }
+
+        // Avoid bothering listeners if nothing actually changed.
+        final List< String > rebuiltLayerNames = new ArrayList<>( assignableLayerNames );
+        if ( !layerNames.equals( rebuiltLayerNames ) ) {
+            layerNames.setAll( rebuiltLayerNames );
+        }
+    }
+
+    // Move the supplied Layer Name to where it now belongs, if it has moved.
+    private void repositionLayerName( final String layerName,
+                                      final LayerNameEntry layerNameEntry ) {
+        // NOTE: The Layer Name is counted where it is now, so it goes one
+        // position earlier once it has been taken out from ahead of there.
+        final int oldPosition = layerNameEntry.position;
+        final int layerNamePosition = getLayerNamePosition( layerName );
+        final int position = ( oldPosition < layerNamePosition )
+            ? layerNamePosition - 1
+            : layerNamePosition;
+        if ( position != oldPosition ) {
+            unlistLayerName( oldPosition );
+            listLayerName( position, layerName, layerNameEntry );
+        }
+    }
+
+    // Move the positions of the Layer Names in the supplied range of the list
+    // by the supplied amount, to match an edit to the list.
+    private void shiftLayerNamePositions( final int fromPosition,
+                                          final int toPosition,
+                                          final int shift ) {
+        for ( int position = fromPosition; position < toPosition; position++ ) {
+            layerNameEntries.get( layerNames.get( position ) ).position += shift;
+        }
+    }
+
+    // Take the Layer Name at the supplied position out of the list, moving the
+    // later Layer Names back.
+    private void unlistLayerName( final int position ) {
+        layerNames.remove( position );
+        shiftLayerNamePositions( position, layerNames.size(), -1 );
+    }
+
+}
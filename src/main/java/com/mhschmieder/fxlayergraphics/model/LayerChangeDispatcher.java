@@ -0,0 +1,239 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// A dispatcher for Layer edits made off the JavaFX Application Thread, such as
+// by import or analysis workers. Edits can be queued from any thread, and are
+// then applied together on the next run of the executor, rather than each
+// edit being posted to the event queue on its own. Repeated edits of the same
+// field of the same Layer are merged, so that only the last value is applied.
+// NOTE: The default executor runs the flush on the next JavaFX pulse, just
+// before the scene is laid out and rendered, so edits are applied at most once
+// per pulse, and at most one flush is pending at a time. A direct executor
+// (such as Runnable::run) can be supplied instead, in order to run without the
+// JavaFX toolkit, such as for testing.
+public final class LayerChangeDispatcher {
+
+    // An executor that runs its tasks on the next JavaFX pulse, by way of an
+    // animation timer that only runs while there are tasks to run.
+    // NOTE: The timer is only ever started and stopped on the JavaFX
+    // Application Thread, so a task queued from any other thread costs one trip
+    // through the event queue to start it, but no more than one per pulse.
+    private static final class PulseExecutor implements Executor {
+
+        // Guard the queued tasks, as they are queued from any thread.
+        private final Object         lock;
+
+        // The tasks to run on the next pulse.
+        private List< Runnable >     pendingTasks;
+
+        // The timer that runs the tasks, which is made once it is first needed
+        // so that the executor can be made before the JavaFX toolkit is.
+        private AnimationTimer       pulseTimer;
+
+        private PulseExecutor() {
+            lock = new Object();
+            pendingTasks = new ArrayList<>();
+            pulseTimer = null;
+        }
+
+        @Override
+        public void execute( final Runnable task ) {
+            Objects.requireNonNull( task, "task" ); //$NON-NLS-1$
+
+            final boolean startTimer;
+            synchronized ( lock ) {
+                startTimer = pendingTasks.isEmpty();
+                pendingTasks.add( task );
+            }
+
+            if ( startTimer ) {
+                if ( Platform.isFxApplicationThread() ) {
+                    startPulseTimer();
+                }
+                else {
+                    Platform.runLater( this::startPulseTimer );
+                }
+            }
+        }
+
+        // Run the queued tasks, and stop the timer until more are queued.
+        private void runPendingTasks() {
+            final List< Runnable > tasks;
+            synchronized ( lock ) {
+                tasks = pendingTasks;
+                pendingTasks = new ArrayList<>();
+            }
+
+            pulseTimer.stop();
+            for ( final Runnable task : tasks ) {
+                task.run();
+            }
+        }
+
+        private void startPulseTimer() {
+            if ( pulseTimer == null ) {
+                pulseTimer = new AnimationTimer() {
+                    @Override
+                    public void handle( final long now ) {
+                        runPendingTasks();
+                    }
+                };
+            }
+
+            pulseTimer.start();
+        }
+
+    }
+
+    // The Layer Collection that the edited Layers belong to.
+    private final ObservableList< LayerProperties >                    layerCollection;
+
+    // The executor that flushes the queued edits.
+    private final Executor                                             flushExecutor;
+
+    // Guard the queued edits, as they are queued from any thread.
+    private final Object                                               lock;
+
+    // The latest queued value of each edited field, by Layer in the order that
+    // the Layers were first edited.
+    private Map< LayerProperties, EnumMap< LayerField, Object > >      pendingEdits;
+
+    // Flag for whether a flush has been handed to the executor and not run yet.
+    private boolean                                                    flushPending;
+
+    public LayerChangeDispatcher( final ObservableList< LayerProperties > pLayerCollection ) {
+        this( pLayerCollection, new PulseExecutor() );
+    }
+
+    public LayerChangeDispatcher( final ObservableList< LayerProperties > pLayerCollection,
+                                  final Executor pFlushExecutor ) {
+        layerCollection = Objects.requireNonNull( pLayerCollection, "layerCollection" ); //$NON-NLS-1$
+        flushExecutor = Objects.requireNonNull( pFlushExecutor, "flushExecutor" ); //$NON-NLS-1$
+        lock = new Object();
+        pendingEdits = new LinkedHashMap<>();
+        flushPending = false;
+    }
+
+    // Apply all of the queued edits now, as a single transaction on the Layer
+    // Collection, so that list change listeners only hear about them once.
+    // NOTE: This must be called on the thread that owns the Layer Collection,
+    // which is normally the JavaFX Application Thread.
+    public void flush() {
+        final Map< LayerProperties, EnumMap< LayerField, Object > > edits;
+        synchronized ( lock ) {
+            edits = pendingEdits;
+            pendingEdits = new LinkedHashMap<>();
+            flushPending = false;
+        }
+
+        if ( edits.isEmpty() ) {
+            return;
+        }
+
+        final LayerTransaction layerTransaction = LayerUtilities
+                .beginTransaction( layerCollection );
+        try {
+            for ( final Map.Entry< LayerProperties, EnumMap< LayerField, Object > > layerEdits : edits
+                    .entrySet() ) {
+                final LayerProperties layer = layerEdits.getKey();
+                for ( final Map.Entry< LayerField, Object > layerEdit : layerEdits.getValue()
+                        .entrySet() ) {
+                    layerEdit.getKey().setLayerValue( layer, layerEdit.getValue() );
+                }
+            }
+        }
+        finally {
+            layerTransaction.close();
+        }
+    }
+
+    public boolean hasPendingEdits() {
+        synchronized ( lock ) {
+            return !pendingEdits.isEmpty();
+        }
+    }
+
+    public void setLayerColor( final LayerProperties layer, final Color layerColor ) {
+        setLayerValue( layer, LayerField.COLOR, layerColor );
+    }
+
+    public void setLayerLocked( final LayerProperties layer, final boolean layerLocked ) {
+        setLayerValue( layer, LayerField.LOCKED, Boolean.valueOf( layerLocked ) );
+    }
+
+    public void setLayerName( final LayerProperties layer, final String layerName ) {
+        setLayerValue( layer, LayerField.NAME, layerName );
+    }
+
+    // Queue an edit of one field of the supplied Layer, replacing any queued
+    // edit of the same field that hasn't been applied yet.
+    // NOTE: Edits are applied as they are, so it is up to the caller to
+    // enforce policies such as the Active Layer Policy once they are applied.
+    public void setLayerValue( final LayerProperties layer,
+                               final LayerField layerField,
+                               final Object value ) {
+        Objects.requireNonNull( layer, "layer" ); //$NON-NLS-1$
+        Objects.requireNonNull( layerField, "layerField" ); //$NON-NLS-1$
+
+        final boolean scheduleFlush;
+        synchronized ( lock ) {
+            pendingEdits.computeIfAbsent( layer, editedLayer -> new EnumMap<>( LayerField.class ) )
+                    .put( layerField, value );
+            scheduleFlush = !flushPending;
+            flushPending = true;
+        }
+
+        if ( scheduleFlush ) {
+            flushExecutor.execute( this::flush );
+        }
+    }
+
+    public void setLayerVisible( final LayerProperties layer, final boolean layerVisible ) {
+        setLayerValue( layer, LayerField.VISIBLE, Boolean.valueOf( layerVisible ) );
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+// An edit to one field of a Layer in a Layer Collection, along with the value
+// of that field before and after the edit, so that listeners can react to just
+// what changed rather than re-examining the whole Layer.
+public final class LayerChangeEvent {
+
+    private final LayerProperties layer;
+    private final LayerField      layerField;
+    private final Object          oldValue;
+    private final Object          newValue;
+
+    public LayerChangeEvent( final LayerProperties pLayer,
+                             final LayerField pLayerField,
+                             final Object pOldValue,
+                             final Object pNewValue ) {
+        layer = pLayer;
+        layerField = pLayerField;
+        oldValue = pOldValue;
+        newValue = pNewValue;
+    }
+
+    public LayerProperties getLayer() {
+        return layer;
+    }
+
+    public LayerField getLayerField() {
+        return layerField;
+    }
+
+    public Object getNewValue() {
+        return newValue;
+    }
+
+    public Object getOldValue() {
+        return oldValue;
+    }
+
+    @Override
+    public String toString() {
+        return layerField + " of " + layer.getLayerName() + ": " + oldValue + " -> " //$NON-NLS-1$ //$NON-NLS-2$
+                + newValue;
+    }
+
+}
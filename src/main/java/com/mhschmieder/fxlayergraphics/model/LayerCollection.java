@@ -0,0 +1,872 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.lang.ref.WeakReference;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.beans.property.ReadOnlyProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+// A Layer Collection that maintains its own lookup indices in step with list
+// edits and Layer Property edits, so that the queries in LayerUtilities can
+// avoid scanning the whole collection.
+// NOTE: Edits to the watched Layer Properties are reported to list change
+// listeners as updates, just as for the extractor-based Layer Collection made
+// by LayerUtilities.makeLayerCollection(). Each Layer only gets a property
+// listener for the watched fields and for the fields that the lookup indices
+// depend on, so an unwatched Layer Color costs nothing until someone listens
+// for Layer Color edits.
+public final class LayerCollection extends AbstractLayerCollection {
+
+    // The Layer fields that the lookup indices must hear about, whether they
+    // are watched or not.
+    private static final Set< LayerField > INDEXED_LAYER_FIELDS = Collections
+            .unmodifiableSet( EnumSet.of( LayerField.NAME,
+                                          LayerField.ACTIVE,
+                                          LayerField.VISIBLE,
+                                          LayerField.LOCKED ) );
+
+    // Cache the Layers in collection order.
+    private final List< LayerProperties >  layers;
+
+    // Index the Layers by their position in the collection.
+    private final LayerPositionIndex       layerPositionIndex;
+
+    // Index the Active, Visible and Locked Layers by position.
+    private final LayerFlagIndex           layerFlagIndex;
+
+    // Decide which Layer Names count as the same Layer Name.
+    private final LayerNameNormalizer      layerNameNormalizer;
+
+    // Index the Layers by normalized Layer Name.
+    private final LayerNameIndex           layerNameIndex;
+
+    // Remember the taken uniquefier numbers for each Layer Name candidate.
+    private final LayerNameUniquefier      layerNameUniquefier;
+
+    // Track the Layer Numbers in use for each numbered Layer Name prefix.
+    private final LayerNumberAllocator     layerNumberAllocator;
+
+    // Index the Layer Names by prefix for type-ahead, once first asked to.
+    private LayerNameTrie                  layerNameTrie;
+
+    // Tell the type-ahead suggestions as each distinct Layer Name comes and
+    // goes, holding them weakly so that discarded suggestions don't linger.
+    private final List< WeakReference< LayerNameSuggestions > > layerNameSuggestions;
+
+    // Keep the assignable Layer Names current, once first asked for them,
+    // both with and without the "various" label used for multi-edit.
+    private AssignableLayerNames           assignableLayerNames;
+    private AssignableLayerNames           multiEditAssignableLayerNames;
+
+    // Track the Active Layers, of which there should only be one.
+    private final Set< LayerProperties >   activeLayers;
+
+    // Keep the field-level listeners for each Layer field.
+    // NOTE: The listener lists are replaced rather than edited, so that
+    // listeners may add or remove listeners while being notified.
+    private final Map< LayerField, List< LayerChangeListener > > layerChangeListeners;
+
+    // Share one property listener across all Layers, as the affected Layer is
+    // always available as the bean of the changed property.
+    private final ChangeListener< Object > layerPropertyListener;
+
+    // The Layer fields whose edits are reported to list change listeners.
+    private final Set< LayerField >        watchedLayerFields;
+
+    // The Layer fields that every Layer has a property listener for, which
+    // only ever grows, as field-level listeners come along.
+    private final Set< LayerField >        listenedLayerFields;
+
+    public LayerCollection() {
+        this( LayerNameNormalizer.EXACT );
+    }
+
+    public LayerCollection( final LayerNameNormalizer pLayerNameNormalizer ) {
+        this( pLayerNameNormalizer, EnumSet.allOf( LayerField.class ) );
+    }
+
+    public LayerCollection( final LayerNameNormalizer pLayerNameNormalizer,
+                            final Set< LayerField > pWatchedLayerFields ) {
+        layerNameNormalizer = Objects.requireNonNull( pLayerNameNormalizer,
+                                                      "layerNameNormalizer" ); //$NON-NLS-1$
+        layers = new ArrayList<>();
+        layerPositionIndex = new LayerPositionIndex( layers );
+        layerFlagIndex = new LayerFlagIndex( layers );
+        layerNameIndex = new LayerNameIndex();
+        layerNameUniquefier = new LayerNameUniquefier( this );
+        layerNumberAllocator = new LayerNumberAllocator( this );
+        activeLayers = Collections.newSetFromMap( new IdentityHashMap<>() );
+        layerChangeListeners = new EnumMap<>( LayerField.class );
+        layerNameSuggestions = new ArrayList<>();
+        layerPropertyListener = this::layerPropertyChanged;
+        watchedLayerFields = EnumSet.noneOf( LayerField.class );
+        watchedLayerFields.addAll( Objects.requireNonNull( pWatchedLayerFields,
+                                                           "watchedLayerFields" ) ); //$NON-NLS-1$
+        listenedLayerFields = EnumSet.copyOf( INDEXED_LAYER_FIELDS );
+        listenedLayerFields.addAll( watchedLayerFields );
+    }
+
+    // Listen for edits to every field of the Layers in the collection.
+    public void addLayerChangeListener( final LayerChangeListener layerChangeListener ) {
+        for ( final LayerField layerField : LayerField.values() ) {
+            addLayerChangeListener( layerField, layerChangeListener );
+        }
+    }
+
+    // Listen for edits to one field of the Layers in the collection, such as
+    // the Layer Color for recoloring without rebuilding any geometry.
+    public void addLayerChangeListener( final LayerField layerField,
+                                        final LayerChangeListener layerChangeListener ) {
+        Objects.requireNonNull( layerChangeListener, "layerChangeListener" ); //$NON-NLS-1$
+        final List< LayerChangeListener > fieldListeners = new ArrayList<>();
+        final List< LayerChangeListener > oldFieldListeners = layerChangeListeners
+                .get( layerField );
+        if ( oldFieldListeners != null ) {
+            fieldListeners.addAll( oldFieldListeners );
+        }
+        fieldListeners.add( layerChangeListener );
+        layerChangeListeners.put( layerField, fieldListeners );
+
+        listenToLayerField( layerField );
+    }
+
+    // Keep the supplied type-ahead suggestions current with the Layer Names.
+    void addLayerNameSuggestions( final LayerNameSuggestions pLayerNameSuggestions ) {
+        getLayerNameTrie();
+        layerNameSuggestions.add( new WeakReference<>( pLayerNameSuggestions ) );
+    }
+
+    @Override
+    public boolean contains( final Object object ) {
+        return indexOf( object ) >= 0;
+    }
+
+    @Override
+    protected void doAdd( final int index, final LayerProperties layer ) {
+        Objects.requireNonNull( layer, "layer" ); //$NON-NLS-1$
+        layers.add( index, layer );
+        layerPositionIndex.layerAdded( index, layer );
+        layerFlagIndex.layerAdded( index, layer );
+        attachLayer( layer );
+    }
+
+    @Override
+    protected LayerProperties doRemove( final int index ) {
+        final LayerProperties layer = layers.remove( index );
+        layerPositionIndex.layerRemoved( index, layer );
+        layerFlagIndex.layerRemoved( index, layer );
+        detachLayer( layer );
+        return layer;
+    }
+
+    @Override
+    protected LayerProperties doSet( final int index, final LayerProperties layer ) {
+        Objects.requireNonNull( layer, "layer" ); //$NON-NLS-1$
+        final LayerProperties oldLayer = layers.set( index, layer );
+        layerPositionIndex.layerReplaced( index, oldLayer, layer );
+        layerFlagIndex.layerReplaced( index, oldLayer, layer );
+        detachLayer( oldLayer );
+        attachLayer( layer );
+        return oldLayer;
+    }
+
+    @Override
+    public LayerProperties get( final int index ) {
+        return layers.get( index );
+    }
+
+    @Override
+    LayerProperties getLayerForRemoval( final int index ) {
+        return layers.get( index );
+    }
+
+    // Get the first Active Layer in collection order, or null if none are
+    // Active.
+    public LayerProperties getActiveLayer() {
+        switch ( activeLayers.size() ) {
+        case 0:
+            return null;
+        case 1:
+            return activeLayers.iterator().next();
+        default:
+            // NOTE: Several Active Layers only happen in passing, such as when
+            // switching the Active Layer, so it's OK to compare positions here.
+            LayerProperties firstActiveLayer = null;
+            int firstActiveLayerIndex = Integer.MAX_VALUE;
+            for ( final LayerProperties activeLayer : activeLayers ) {
+                final int activeLayerIndex = indexOf( activeLayer );
+                if ( activeLayerIndex < firstActiveLayerIndex ) {
+                    firstActiveLayer = activeLayer;
+                    firstActiveLayerIndex = activeLayerIndex;
+                }
+            }
+            return firstActiveLayer;
+        }
+    }
+
+    // Get the positions of the Active Layers, as a copy that the caller may
+    // modify (such as for combining with other positions).
+    public BitSet getActiveLayerPositions() {
+        return ( BitSet ) layerFlagIndex.getActiveLayerPositions().clone();
+    }
+
+    // Get the live list of assignable Layer Names, which are the distinct
+    // names of the Visible Layers in collection order.
+    public ObservableList< String > getAssignableLayerNames() {
+        return getAssignableLayerNames( false );
+    }
+
+    // Get the live list of assignable Layer Names, prefaced by the "various"
+    // label for heterogeneous selections if we support multi-edit.
+    // NOTE: The assignable Layer Names are kept current by the list change
+    // events, so from now on edits to Layer Names and Visible Status are always
+    // reported, even if they weren't watched.
+    public ObservableList< String > getAssignableLayerNames( final boolean supportMultiEdit ) {
+        watchedLayerFields.add( LayerField.NAME );
+        watchedLayerFields.add( LayerField.VISIBLE );
+
+        if ( supportMultiEdit ) {
+            if ( multiEditAssignableLayerNames == null ) {
+                multiEditAssignableLayerNames = new AssignableLayerNames( this, true );
+            }
+
+            return multiEditAssignableLayerNames.getLayerNames();
+        }
+
+        if ( assignableLayerNames == null ) {
+            assignableLayerNames = new AssignableLayerNames( this, false );
+        }
+
+        return assignableLayerNames.getLayerNames();
+    }
+
+    public int getHiddenLayerCount() {
+        return layers.size() - layerFlagIndex.getVisibleLayerCount();
+    }
+
+    public BitSet getHiddenLayerPositions() {
+        final BitSet hiddenLayerPositions = getVisibleLayerPositions();
+        hiddenLayerPositions.flip( 0, layers.size() );
+        return hiddenLayerPositions;
+    }
+
+    // Get the first Layer in collection order that has the given Layer Name,
+    // or null if there is no such Layer.
+    public LayerProperties getLayerByName( final String layerName ) {
+        final String layerNameKey = getLayerNameKey( layerName );
+        final List< LayerProperties > sharedLayers = layerNameIndex.getSharedLayers( layerNameKey );
+        if ( sharedLayers == null ) {
+            return layerNameIndex.getLayer( layerNameKey );
+        }
+
+        // NOTE: Duplicate Layer Names are rare, so it is OK to fall back to
+        // collection order here, which matches a linear search by name.
+        LayerProperties firstLayer = null;
+        int firstLayerIndex = Integer.MAX_VALUE;
+        for ( final LayerProperties layer : sharedLayers ) {
+            final int layerIndex = indexOf( layer );
+            if ( ( layerIndex >= 0 ) && ( layerIndex < firstLayerIndex ) ) {
+                firstLayer = layer;
+                firstLayerIndex = layerIndex;
+            }
+        }
+
+        return firstLayer;
+    }
+
+    public int getLayerNameCount( final String layerName ) {
+        return layerNameIndex.getLayerCount( getLayerNameKey( layerName ) );
+    }
+
+    // Get the normalized key for the supplied Layer Name.
+    String getLayerNameKey( final String layerName ) {
+        return layerNameNormalizer.normalizeLayerName( layerName );
+    }
+
+    public LayerNameNormalizer getLayerNameNormalizer() {
+        return layerNameNormalizer;
+    }
+
+    // Get the Layer Names that start with the supplied prefix, or (if matching
+    // segments) that have any name segment starting with it, disregarding case.
+    // NOTE: This only visits the Layer Names that match, so it is suitable for
+    // type-ahead filtering of large collections on every keystroke.
+    public ObservableList< String > getLayerNamesWithPrefix( final String prefix,
+                                                             final boolean matchSegments ) {
+        final Set< String > layerNames = new LinkedHashSet<>();
+        getLayerNameTrie().collectLayerNames( ( prefix != null ) ? prefix : "", //$NON-NLS-1$
+                                              matchSegments,
+                                              layerNames );
+
+        return FXCollections.observableArrayList( layerNames );
+    }
+
+    // Get the Layer Names that contain the supplied name segment (or run of
+    // name segments) as a whole, disregarding case, such as "WALL" for both
+    // "A-WALL" and "A-WALL-FULL", but not for "A-WALLS".
+    // NOTE: As for prefixes, this only visits the Layer Names that match.
+    public ObservableList< String > getLayerNamesWithSegment( final String segment ) {
+        final Set< String > layerNames = new LinkedHashSet<>();
+        if ( ( segment != null ) && !segment.isEmpty() ) {
+            getLayerNameTrie().collectLayerNamesWithSegment( segment, layerNames );
+        }
+
+        return FXCollections.observableArrayList( layerNames );
+    }
+
+    public int getLockedLayerCount() {
+        return layerFlagIndex.getLockedLayerCount();
+    }
+
+    public BitSet getLockedLayerPositions() {
+        return ( BitSet ) layerFlagIndex.getLockedLayerPositions().clone();
+    }
+
+    // Get the next available Layer Name of the form "<default> <number>",
+    // using the supplied Layer Number as the lowest acceptable number.
+    public String getNextAvailableLayerName( final String layerNameDefault,
+                                             final int layerNumber ) {
+        return layerNumberAllocator.getNextAvailableLayerName( layerNameDefault, layerNumber );
+    }
+
+    // Get a unique Layer Name from the candidate name, starting from the
+    // supplied uniquefier number and disregarding the excluded Layer (which may
+    // be null). The lowest available number is always used, so that the names
+    // of deleted Layers get reused.
+    public String getUniqueLayerName( final String layerNameCandidate,
+                                      final NumberFormat uniquefierNumberFormat,
+                                      final int uniquefierNumber,
+                                      final LayerProperties excludeLayer ) {
+        return layerNameUniquefier.getUniqueLayerName( layerNameCandidate,
+                                                       uniquefierNumberFormat,
+                                                       uniquefierNumber,
+                                                       excludeLayer );
+    }
+
+    public int getVisibleLayerCount() {
+        return layerFlagIndex.getVisibleLayerCount();
+    }
+
+    public BitSet getVisibleLayerPositions() {
+        return ( BitSet ) layerFlagIndex.getVisibleLayerPositions().clone();
+    }
+
+    // Get the positions of the Layers that are Visible and not Locked, which
+    // are the ones that can be drawn on or picked from.
+    public BitSet getVisibleUnlockedLayerPositions() {
+        final BitSet visibleUnlockedLayerPositions = getVisibleLayerPositions();
+        visibleUnlockedLayerPositions.andNot( layerFlagIndex.getLockedLayerPositions() );
+        return visibleUnlockedLayerPositions;
+    }
+
+    public boolean hasActiveLayer() {
+        return !activeLayers.isEmpty();
+    }
+
+    // Find out whether any Layer has the same Layer Name as the reference
+    // Layer, using the reference Layer's cached Layer Name key.
+    public boolean hasLayer( final LayerProperties referenceLayer ) {
+        final String referenceLayerNameKey = referenceLayer
+                .getLayerNameKey( layerNameNormalizer, referenceLayer.getLayerName() );
+        return layerNameIndex.hasLayerName( referenceLayerNameKey );
+    }
+
+    public boolean hasLayerName( final String layerName ) {
+        return layerNameIndex.hasLayerName( getLayerNameKey( layerName ) );
+    }
+
+    @Override
+    public int indexOf( final Object object ) {
+        // NOTE: Layers do not override equality, so identity is sufficient.
+        return ( object instanceof LayerProperties )
+            ? layerPositionIndex.indexOf( ( LayerProperties ) object )
+            : -1;
+    }
+
+    // Show the Hidden Layers and hide the Visible Layers, as a single change.
+    public void invertLayerVisibility() {
+        setVisibleLayerPositions( getHiddenLayerPositions() );
+    }
+
+    // Determine name-uniqueness of the supplied Layer Name candidate,
+    // disregarding the excluded Layer (which may be null).
+    public boolean isLayerNameUnique( final String layerNameCandidate,
+                                      final LayerProperties excludeLayer ) {
+        final String layerNameKey = getLayerNameKey( layerNameCandidate );
+        switch ( layerNameIndex.getLayerCount( layerNameKey ) ) {
+        case 0:
+            return true;
+        case 1:
+            return ( excludeLayer != null )
+                    && ( layerNameIndex.getLayer( layerNameKey ) == excludeLayer );
+        default:
+            return false;
+        }
+    }
+
+    // Hide every Layer except for the one at the supplied index, as a single
+    // change.
+    public void isolateLayer( final int layerIndex ) {
+        final BitSet visibleLayerPositions = new BitSet();
+        visibleLayerPositions.set( layerIndex );
+        setVisibleLayerPositions( visibleLayerPositions );
+    }
+
+    // Report the Layer at the supplied index as updated, even if nothing about
+    // it has changed, such as to resync a view after an edit was dismissed.
+    public void refreshLayer( final int layerIndex ) {
+        beginChange();
+        nextLayerUpdate( layerIndex );
+        endChange();
+    }
+
+    // Stop listening for edits to any field of the Layers in the collection.
+    public void removeLayerChangeListener( final LayerChangeListener layerChangeListener ) {
+        for ( final LayerField layerField : LayerField.values() ) {
+            removeLayerChangeListener( layerField, layerChangeListener );
+        }
+    }
+
+    // Stop listening for edits to one field of the Layers in the collection.
+    public void removeLayerChangeListener( final LayerField layerField,
+                                           final LayerChangeListener layerChangeListener ) {
+        final List< LayerChangeListener > oldFieldListeners = layerChangeListeners
+                .get( layerField );
+        if ( ( oldFieldListeners == null ) || !oldFieldListeners.contains( layerChangeListener ) ) {
+            return;
+        }
+
+        final List< LayerChangeListener > fieldListeners = new ArrayList<>( oldFieldListeners );
+        fieldListeners.remove( layerChangeListener );
+        if ( fieldListeners.isEmpty() ) {
+            layerChangeListeners.remove( layerField );
+        }
+        else {
+            layerChangeListeners.put( layerField, fieldListeners );
+        }
+    }
+
+    // Restore every Layer captured by the supplied Layer State, writing only
+    // the values that differ and enforcing the Hidden Layer Policy once at the
+    // end. List change listeners get a single change that covers all of the
+    // restored Layers.
+    public void restoreLayerState( final LayerState layerState ) {
+        beginChange();
+        try {
+            for ( int layerIndex = 0, numberOfLayers = layers
+                    .size(); layerIndex < numberOfLayers; layerIndex++ ) {
+                layerState.restoreLayer( layers.get( layerIndex ) );
+            }
+
+            if ( !layers.isEmpty() ) {
+                enforceHiddenLayerPolicy();
+            }
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    // Show the Layers at the supplied positions and hide the rest, enforcing
+    // the Hidden Layer Policy once at the end rather than once per Layer.
+    // Only the Layers whose Visible Status actually changes are touched, and
+    // list change listeners get a single change that covers all of them.
+    public void setVisibleLayerPositions( final BitSet visibleLayerPositions ) {
+        final int numberOfLayers = layers.size();
+        final BitSet changedLayerPositions = visibleLayerPositions.get( 0, numberOfLayers );
+        changedLayerPositions.xor( layerFlagIndex.getVisibleLayerPositions() );
+        if ( changedLayerPositions.isEmpty() ) {
+            return;
+        }
+
+        beginChange();
+        try {
+            for ( int layerIndex = changedLayerPositions
+                    .nextSetBit( 0 ); layerIndex >= 0; layerIndex = changedLayerPositions
+                            .nextSetBit( layerIndex + 1 ) ) {
+                layers.get( layerIndex )
+                        .setLayerVisible( visibleLayerPositions.get( layerIndex ) );
+            }
+
+            enforceHiddenLayerPolicy();
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    // Show every Layer, as a single change.
+    public void showAllLayers() {
+        final BitSet visibleLayerPositions = new BitSet();
+        visibleLayerPositions.set( 0, layers.size() );
+        setVisibleLayerPositions( visibleLayerPositions );
+    }
+
+    @Override
+    public int size() {
+        return layers.size();
+    }
+
+    // Sort the Layers in place, reporting the result as a single permutation
+    // rather than as a replacement of every Layer in the collection.
+    // NOTE: A null comparator sorts by natural order, which keeps the Default
+    // Layer at the top of the collection.
+    @Override
+    public void sort( final Comparator< ? super LayerProperties > comparator ) {
+        final Comparator< ? super LayerProperties > layerComparator = ( comparator != null )
+            ? comparator
+            : Comparator.< LayerProperties > naturalOrder();
+
+        final int numberOfLayers = layers.size();
+        final Integer[] sortedOrder = new Integer[ numberOfLayers ];
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            sortedOrder[ layerIndex ] = Integer.valueOf( layerIndex );
+        }
+        Arrays.sort( sortedOrder,
+                     ( index1, index2 ) -> layerComparator.compare( layers.get( index1 ),
+                                                                    layers.get( index2 ) ) );
+
+        final LayerProperties[] sortedLayers = new LayerProperties[ numberOfLayers ];
+        final int[] permutation = new int[ numberOfLayers ];
+        boolean permuted = false;
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            final int oldLayerIndex = sortedOrder[ layerIndex ].intValue();
+            sortedLayers[ layerIndex ] = layers.get( oldLayerIndex );
+            permutation[ oldLayerIndex ] = layerIndex;
+            permuted |= ( oldLayerIndex != layerIndex );
+        }
+
+        if ( !permuted ) {
+            return;
+        }
+
+        // NOTE: During a transaction, the sort is reported as part of the
+        // replacement of every row when the transaction is closed.
+        final LayerTransactionLog transactionLog = getTransactionLog();
+        if ( transactionLog != null ) {
+            transactionLog.coverRows( 0, numberOfLayers );
+        }
+
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            layers.set( layerIndex, sortedLayers[ layerIndex ] );
+        }
+        layerPositionIndex.invalidate();
+        layerFlagIndex.invalidate();
+        modCount++;
+
+        if ( transactionLog == null ) {
+            beginChange();
+            nextPermutation( 0, numberOfLayers, permutation );
+            endChange();
+        }
+    }
+
+    // Make the supplied Layer the only Active Layer, touching only the Layers
+    // whose Active Status actually changes. List change listeners get a single
+    // change that covers all of the affected Layers, rather than one change
+    // per Layer, so that views only have to resync once per switch.
+    // NOTE: In order to avoid consuming a desired positive setting of a new
+    // Active Layer when a higher row is inactivated, we must first set the new
+    // Active Layer and then inactivate the rest.
+    public void switchActiveLayer( final LayerProperties activeLayer ) {
+        beginChange();
+        try {
+            if ( !activeLayer.isLayerActive() ) {
+                activeLayer.setLayerActive( true );
+            }
+
+            if ( activeLayers.size() > 1 ) {
+                final LayerProperties[] previousActiveLayers = activeLayers
+                        .toArray( new LayerProperties[ activeLayers.size() ] );
+                for ( final LayerProperties previousActiveLayer : previousActiveLayers ) {
+                    if ( previousActiveLayer != activeLayer ) {
+                        previousActiveLayer.setLayerActive( false );
+                    }
+                }
+            }
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    private void attachLayer( final LayerProperties layer ) {
+        for ( final LayerField layerField : listenedLayerFields ) {
+            getLayerPropertyValue( layer, layerField ).addListener( layerPropertyListener );
+        }
+
+        indexLayerName( layer.getLayerNameKey( layerNameNormalizer, layer.getLayerName() ),
+                        layer );
+        fileLayerName( layer.getLayerName() );
+
+        if ( layer.isLayerActive() ) {
+            activeLayers.add( layer );
+        }
+    }
+
+    private void detachLayer( final LayerProperties layer ) {
+        for ( final LayerField layerField : listenedLayerFields ) {
+            getLayerPropertyValue( layer, layerField ).removeListener( layerPropertyListener );
+        }
+
+        unindexLayerName( layer.getLayerNameKey( layerNameNormalizer, layer.getLayerName() ),
+                          layer );
+        unfileLayerName( layer.getLayerName() );
+
+        // NOTE: The same Layer could be in the collection more than once, so
+        // only stop tracking it once it's gone altogether.
+        if ( layer.isLayerActive() && ( indexOf( layer ) < 0 ) ) {
+            activeLayers.remove( layer );
+        }
+    }
+
+    // Make the Default Layer Active if the Active Layer is now Hidden, unless
+    // it is the Default Layer already.
+    private void enforceHiddenLayerPolicy() {
+        final LayerProperties activeLayer = getActiveLayer();
+        final LayerProperties defaultLayer = layers.get( LayerUtilities.DEFAULT_LAYER_INDEX );
+        if ( ( activeLayer != null ) && ( activeLayer != defaultLayer )
+                && !activeLayer.isLayerVisible() ) {
+            switchActiveLayer( defaultLayer );
+        }
+    }
+
+    // File the supplied Layer Name for type-ahead, if the Layer Names are
+    // indexed for type-ahead yet, telling the suggestions if it is new.
+    private void fileLayerName( final String layerName ) {
+        if ( ( layerNameTrie != null ) && layerNameTrie.addLayerName( layerName ) ) {
+            for ( int i = layerNameSuggestions.size() - 1; i >= 0; i-- ) {
+                final LayerNameSuggestions suggestions = layerNameSuggestions.get( i ).get();
+                if ( suggestions != null ) {
+                    suggestions.layerNameAdded( layerName );
+                }
+                else {
+                    layerNameSuggestions.remove( i );
+                }
+            }
+        }
+    }
+
+    private static LayerField getLayerField( final LayerProperties layer,
+                                             final ObservableValue< ? > observable ) {
+        if ( observable == layer.layerNameProperty() ) {
+            return LayerField.NAME;
+        }
+        else if ( observable == layer.layerColorProperty() ) {
+            return LayerField.COLOR;
+        }
+        else if ( observable == layer.layerActiveProperty() ) {
+            return LayerField.ACTIVE;
+        }
+        else if ( observable == layer.layerVisibleProperty() ) {
+            return LayerField.VISIBLE;
+        }
+        else {
+            return LayerField.LOCKED;
+        }
+    }
+
+    private LayerNameTrie getLayerNameTrie() {
+        if ( layerNameTrie == null ) {
+            layerNameTrie = new LayerNameTrie();
+            for ( final LayerProperties layer : layers ) {
+                layerNameTrie.addLayerName( layer.getLayerName() );
+            }
+        }
+
+        return layerNameTrie;
+    }
+
+    private static ObservableValue< ? > getLayerPropertyValue( final LayerProperties layer,
+                                                               final LayerField layerField ) {
+        return ( ObservableValue< ? > ) layerField.getLayerProperty( layer );
+    }
+
+    private void indexLayerName( final String layerNameKey, final LayerProperties layer ) {
+        layerNameIndex.addLayer( layerNameKey, layer );
+        layerNumberAllocator.layerNameAdded( layerNameKey );
+    }
+
+    private boolean isLayerNameShared( final LayerProperties layer ) {
+        return layerNameIndex.getLayerCount( layer
+                .getLayerNameKey( layerNameNormalizer, layer.getLayerName() ) ) > 1;
+    }
+
+    private void layerPropertyChanged( final ObservableValue< ? > observable,
+                                       final Object oldValue,
+                                       final Object newValue ) {
+        final LayerProperties layer = ( LayerProperties ) ( ( ReadOnlyProperty< ? > ) observable )
+                .getBean();
+        final LayerField layerField = getLayerField( layer, observable );
+
+        // Keep the Layer Name index current before anyone hears of the edit.
+        if ( layerField == LayerField.NAME ) {
+            // NOTE: The Layer still has the key for its old Layer Name cached,
+            // so only the new Layer Name needs to be normalized.
+            unindexLayerName( layer.getLayerNameKey( layerNameNormalizer, ( String ) oldValue ),
+                              layer );
+            indexLayerName( layer.getLayerNameKey( layerNameNormalizer, ( String ) newValue ),
+                            layer );
+            unfileLayerName( ( String ) oldValue );
+            fileLayerName( ( String ) newValue );
+        }
+        else if ( layerField == LayerField.ACTIVE ) {
+            if ( Boolean.TRUE.equals( newValue ) ) {
+                activeLayers.add( layer );
+            }
+            else {
+                activeLayers.remove( layer );
+            }
+        }
+
+        final int layerIndex = indexOf( layer );
+        if ( layerIndex < 0 ) {
+            return;
+        }
+
+        // Keep the flag index current as well.
+        // NOTE: A Layer can only occur more than once in the collection if its
+        // Layer Name is shared, so the Layer Name index tells us when we need
+        // to look any further than the first occurrence.
+        final boolean layerNameShared = isLayerNameShared( layer );
+        switch ( layerField ) {
+        case ACTIVE:
+            layerFlagIndex.layerActiveChanged( layerIndex,
+                                               Boolean.TRUE.equals( newValue ),
+                                               layerNameShared );
+            break;
+        case VISIBLE:
+            layerFlagIndex.layerVisibleChanged( layerIndex,
+                                                Boolean.TRUE.equals( newValue ),
+                                                layerNameShared );
+            break;
+        case LOCKED:
+            layerFlagIndex.layerLockedChanged( layerIndex,
+                                               Boolean.TRUE.equals( newValue ),
+                                               layerNameShared );
+            break;
+        default:
+            break;
+        }
+
+        // Report an edit of a watched field as an update of every occurrence
+        // of the affected Layer, as the extractor-based Layer Collection does.
+        // NOTE: If this edit is part of a larger change (such as switching the
+        // Active Layer), the update is merged into that change, so listeners
+        // only hear about it when the larger change is done.
+        if ( watchedLayerFields.contains( layerField ) ) {
+            beginChange();
+            nextLayerUpdate( layerIndex );
+            if ( layerNameShared ) {
+                for ( int i = layerIndex + 1, numberOfLayers = layers
+                        .size(); i < numberOfLayers; i++ ) {
+                    if ( layers.get( i ) == layer ) {
+                        nextLayerUpdate( i );
+                    }
+                }
+            }
+            endChange();
+        }
+
+        // Tell the listeners for this field exactly what changed.
+        // NOTE: Unlike list change listeners, these hear about each edit as it
+        // happens, even during a transaction, as that is when the old value is
+        // at hand.
+        final List< LayerChangeListener > fieldListeners = layerChangeListeners.get( layerField );
+        if ( fieldListeners != null ) {
+            final LayerChangeEvent layerChangeEvent = new LayerChangeEvent( layer,
+                                                                            layerField,
+                                                                            oldValue,
+                                                                            newValue );
+            for ( final LayerChangeListener layerChangeListener : fieldListeners ) {
+                layerChangeListener.layerChanged( layerChangeEvent );
+            }
+        }
+    }
+
+    // Give every Layer a property listener for the supplied field, if they
+    // don't have one already.
+    private void listenToLayerField( final LayerField layerField ) {
+        if ( listenedLayerFields.add( layerField ) ) {
+            for ( final LayerProperties layer : layers ) {
+                getLayerPropertyValue( layer, layerField ).addListener( layerPropertyListener );
+            }
+        }
+    }
+
+    // Take the supplied Layer Name out of the type-ahead index, if the Layer
+    // Names are indexed for type-ahead yet, telling the suggestions if no
+    // Layer has this name any more.
+    private void unfileLayerName( final String layerName ) {
+        if ( ( layerNameTrie != null ) && layerNameTrie.removeLayerName( layerName ) ) {
+            for ( int i = layerNameSuggestions.size() - 1; i >= 0; i-- ) {
+                final LayerNameSuggestions suggestions = layerNameSuggestions.get( i ).get();
+                if ( suggestions != null ) {
+                    suggestions.layerNameRemoved( layerName );
+                }
+                else {
+                    layerNameSuggestions.remove( i );
+                }
+            }
+        }
+    }
+
+    private void unindexLayerName( final String layerNameKey, final LayerProperties layer ) {
+        layerNameIndex.removeLayer( layerNameKey, layer );
+
+        // Once a Layer Name is no longer in use, it is free for reuse.
+        if ( !layerNameIndex.hasLayerName( layerNameKey ) ) {
+            layerNameUniquefier.layerNameReleased( layerNameKey );
+            layerNumberAllocator.layerNameReleased( layerNameKey );
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import javafx.scene.paint.Color;
+
+// Palette of Layer Colors that is shared across all open documents, so that
+// Layers with the same Layer Color share a single Color instance. Drawings
+// typically have thousands of Layers but only a few dozen distinct colors, so
+// color-by-layer rendering can batch by shared Color (or by its ARGB form)
+// rather than by Color value.
+// NOTE: The palette is a fixed number of slots, keyed by ARGB value, so it
+// never grows however many distinct Layer Colors are used over time. A slot
+// is simply reused when another Layer Color needs it, and the displaced Layer
+// Color is reclaimed once no Layer refers to it any more. Layers hold on to
+// their shared Color rather than to a slot, so reusing a slot only means that
+// the next Layer with the displaced Layer Color gets a new instance of it.
+// NOTE: Slots are read and written without locking, as each slot is replaced
+// in one go by an immutable entry. A reader that races with a writer sees
+// either the old or the new entry, and at worst makes another instance of a
+// Layer Color that the palette then shares from then on.
+public final class LayerColorPalette {
+
+    // Declare the number of slots in the palette, which must be a power of two.
+    private static final int               LAYER_COLOR_SLOT_COUNT  = 1024;
+
+    // Declare how many slots are looked at for each ARGB value, so that a few
+    // Layer Colors that land on the same slot can still all be shared.
+    private static final int               LAYER_COLOR_PROBE_LIMIT = 4;
+
+    // One shared Layer Color along with its ARGB form.
+    private static final class LayerColorEntry {
+
+        private final int   layerColorArgb;
+        private final Color layerColor;
+
+        private LayerColorEntry( final int pLayerColorArgb, final Color pLayerColor ) {
+            layerColorArgb = pLayerColorArgb;
+            layerColor = pLayerColor;
+        }
+
+    }
+
+    // The shared Layer Colors, by slot.
+    private static final LayerColorEntry[] LAYER_COLOR_ENTRIES     =
+            new LayerColorEntry[ LAYER_COLOR_SLOT_COUNT ];
+
+    // Get the shared Layer Color with the supplied 32-bit ARGB value, such as
+    // for Layer Tables that store their Layer Colors in ARGB form, making it if
+    // the palette doesn't currently have it.
+    public static Color getLayerColorForArgb( final int layerColorArgb ) {
+        final LayerColorEntry layerColorEntry = getLayerColorEntry( layerColorArgb );
+        if ( layerColorEntry != null ) {
+            return layerColorEntry.layerColor;
+        }
+
+        final Color layerColor = makeLayerColor( layerColorArgb );
+        putLayerColorEntry( new LayerColorEntry( layerColorArgb, layerColor ) );
+
+        return layerColor;
+    }
+
+    // Get the shared instance of the supplied Layer Color, adding it to the
+    // palette if the palette doesn't currently have it.
+    // NOTE: Only Layer Colors that are exactly represented by their ARGB form
+    // are shared, as only those can be keyed by it. Others, which are rare as
+    // Layer Colors are normally chosen or stored with 8-bit channels, are
+    // passed back as they are.
+    public static Color intern( final Color layerColor ) {
+        if ( layerColor == null ) {
+            return null;
+        }
+
+        final int layerColorArgb = toArgb( layerColor );
+        final LayerColorEntry layerColorEntry = getLayerColorEntry( layerColorArgb );
+        if ( layerColorEntry != null ) {
+            return layerColorEntry.layerColor.equals( layerColor )
+                ? layerColorEntry.layerColor
+                : layerColor;
+        }
+
+        if ( layerColor.equals( makeLayerColor( layerColorArgb ) ) ) {
+            putLayerColorEntry( new LayerColorEntry( layerColorArgb, layerColor ) );
+        }
+
+        return layerColor;
+    }
+
+    // Convert the supplied Layer Color to 32-bit ARGB form, rounding each
+    // channel to the nearest 8-bit value.
+    // NOTE: No Layer Color at all is treated as fully transparent black.
+    public static int toArgb( final Color layerColor ) {
+        if ( layerColor == null ) {
+            return 0;
+        }
+
+        final int alpha = ( int ) Math.round( layerColor.getOpacity() * 255d );
+        final int red = ( int ) Math.round( layerColor.getRed() * 255d );
+        final int green = ( int ) Math.round( layerColor.getGreen() * 255d );
+        final int blue = ( int ) Math.round( layerColor.getBlue() * 255d );
+        return ( alpha << 24 ) | ( red << 16 ) | ( green << 8 ) | blue;
+    }
+
+    // NOTE: The constructor is disabled, as this is a static class.
+    private LayerColorPalette() {}
+
+    // Get the palette entry for the supplied ARGB value, or null if the
+    // palette doesn't currently have it.
+    private static LayerColorEntry getLayerColorEntry( final int layerColorArgb ) {
+        final int homeSlot = getHomeSlot( layerColorArgb );
+        for ( int probe = 0; probe < LAYER_COLOR_PROBE_LIMIT; probe++ ) {
+            final LayerColorEntry layerColorEntry = LAYER_COLOR_ENTRIES[ ( homeSlot + probe )
+                    & ( LAYER_COLOR_SLOT_COUNT - 1 ) ];
+            if ( layerColorEntry == null ) {
+                return null;
+            }
+            if ( layerColorEntry.layerColorArgb == layerColorArgb ) {
+                return layerColorEntry;
+            }
+        }
+
+        return null;
+    }
+
+    // Get the first slot to look at for the supplied ARGB value, spreading
+    // similar colors across the palette.
+    private static int getHomeSlot( final int layerColorArgb ) {
+        return ( layerColorArgb * 0x9E3779B9 ) >>> ( Integer.SIZE
+                - Integer.numberOfTrailingZeros( LAYER_COLOR_SLOT_COUNT ) );
+    }
+
+    private static Color makeLayerColor( final int layerColorArgb ) {
+        return Color.rgb( ( layerColorArgb >>> 16 ) & 0xff,
+                          ( layerColorArgb >>> 8 ) & 0xff,
+                          layerColorArgb & 0xff,
+                          ( layerColorArgb >>> 24 ) / 255d );
+    }
+
+    // Put the supplied entry in the first free slot for its ARGB value, or in
+    // its first slot if they are all taken, displacing the Layer Color there.
+    private static void putLayerColorEntry( final LayerColorEntry layerColorEntry ) {
+        final int homeSlot = getHomeSlot( layerColorEntry.layerColorArgb );
+        for ( int probe = 0; probe < LAYER_COLOR_PROBE_LIMIT; probe++ ) {
+            final int slot = ( homeSlot + probe ) & ( LAYER_COLOR_SLOT_COUNT - 1 );
+            if ( LAYER_COLOR_ENTRIES[ slot ] == null ) {
+                LAYER_COLOR_ENTRIES[ slot ] = layerColorEntry;
+                return;
+            }
+        }
+
+        LAYER_COLOR_ENTRIES[ homeSlot ] = layerColorEntry;
+    }
+
+}
@@ -0,0 +1,102 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import javafx.beans.Observable;
+import javafx.scene.paint.Color;
+
+// The editable fields of a Layer, each of which is backed by an observable
+// Layer Property. This is used for choosing which fields a Layer Collection
+// watches for edits.
+public enum LayerField {
+    NAME, COLOR, ACTIVE, VISIBLE, LOCKED;
+
+    // Get the current value of this field of the supplied Layer.
+    public Object getLayerValue( final LayerProperties layer ) {
+        switch ( this ) {
+        case NAME:
+            return layer.getLayerName();
+        case COLOR:
+            return layer.getLayerColor();
+        case ACTIVE:
+            return Boolean.valueOf( layer.isLayerActive() );
+        case VISIBLE:
+            return Boolean.valueOf( layer.isLayerVisible() );
+        case LOCKED:
+            return Boolean.valueOf( layer.isLayerLocked() );
+        default:
+            throw new AssertionError( this );
+        }
+    }
+
+    // Get the observable Layer Property for this field of the supplied Layer.
+    public Observable getLayerProperty( final LayerProperties layer ) {
+        switch ( this ) {
+        case NAME:
+            return layer.layerNameProperty();
+        case COLOR:
+            return layer.layerColorProperty();
+        case ACTIVE:
+            return layer.layerActiveProperty();
+        case VISIBLE:
+            return layer.layerVisibleProperty();
+        case LOCKED:
+            return layer.layerLockedProperty();
+        default:
+            throw new AssertionError( this );
+        }
+    }
+
+    // Set this field of the supplied Layer to the supplied value, which must be
+    // of the field's type (String, Color or Boolean).
+    public void setLayerValue( final LayerProperties layer, final Object value ) {
+        switch ( this ) {
+        case NAME:
+            layer.setLayerName( ( String ) value );
+            break;
+        case COLOR:
+            layer.setLayerColor( ( Color ) value );
+            break;
+        case ACTIVE:
+            layer.setLayerActive( ( ( Boolean ) value ).booleanValue() );
+            break;
+        case VISIBLE:
+            layer.setLayerVisible( ( ( Boolean ) value ).booleanValue() );
+            break;
+        case LOCKED:
+            layer.setLayerLocked( ( ( Boolean ) value ).booleanValue() );
+            break;
+        default:
+            throw new AssertionError( this );
+        }
+    }
+
+}
@@ -0,0 +1,258 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.BitSet;
+import java.util.List;
+
+// Flag index for a Layer Collection, which keeps the positions of the Active,
+// Visible and Locked Layers as bit sets, so that queries across the whole
+// collection can use set algebra rather than visiting every Layer, along with
+// counts of each so that they are always available directly.
+// NOTE: As with the position index, an insertion or removal in the middle of
+// the collection shifts every later position, so in that case we just note
+// that the bit sets are stale and rebuild them on the next query. Appending and
+// replacing, as well as flag edits on Layers that only occur once in the
+// collection, are patched in place.
+final class LayerFlagIndex {
+
+    // Keep track of the Layers in collection order.
+    private final List< LayerProperties > layers;
+
+    // The positions of the Active Layers.
+    private final BitSet                  activeLayerPositions;
+
+    // The positions of the Visible Layers.
+    private final BitSet                  visibleLayerPositions;
+
+    // The positions of the Locked Layers.
+    private final BitSet                  lockedLayerPositions;
+
+    // The number of Active Layers.
+    private int                           activeLayerCount;
+
+    // The number of Visible Layers.
+    private int                           visibleLayerCount;
+
+    // The number of Locked Layers.
+    private int                           lockedLayerCount;
+
+    // Flag for whether the bit sets match the collection.
+    private boolean                       positionsValid;
+
+    // Flag for whether the counts match the collection.
+    private boolean                       countsValid;
+
+    LayerFlagIndex( final List< LayerProperties > pLayers ) {
+        layers = pLayers;
+        activeLayerPositions = new BitSet();
+        visibleLayerPositions = new BitSet();
+        lockedLayerPositions = new BitSet();
+        activeLayerCount = 0;
+        visibleLayerCount = 0;
+        lockedLayerCount = 0;
+        positionsValid = true;
+        countsValid = true;
+    }
+
+    int getActiveLayerCount() {
+        if ( !countsValid ) {
+            reindex();
+        }
+        return activeLayerCount;
+    }
+
+    BitSet getActiveLayerPositions() {
+        if ( !positionsValid ) {
+            reindex();
+        }
+        return activeLayerPositions;
+    }
+
+    int getLockedLayerCount() {
+        if ( !countsValid ) {
+            reindex();
+        }
+        return lockedLayerCount;
+    }
+
+    BitSet getLockedLayerPositions() {
+        if ( !positionsValid ) {
+            reindex();
+        }
+        return lockedLayerPositions;
+    }
+
+    int getVisibleLayerCount() {
+        if ( !countsValid ) {
+            reindex();
+        }
+        return visibleLayerCount;
+    }
+
+    BitSet getVisibleLayerPositions() {
+        if ( !positionsValid ) {
+            reindex();
+        }
+        return visibleLayerPositions;
+    }
+
+    // Note that every position may have moved, such as after a sort.
+    void invalidate() {
+        positionsValid = false;
+    }
+
+    // Note that the Active Status of a Layer changed. If the same Layer occurs
+    // more than once in the collection, every occurrence changed at once.
+    void layerActiveChanged( final int index, final boolean layerActive, final boolean shared ) {
+        activeLayerCount += layerFlagChanged( activeLayerPositions,
+                                              index,
+                                              layerActive,
+                                              shared );
+    }
+
+    // Note that a Layer was inserted into the collection at the given index.
+    void layerAdded( final int index, final LayerProperties layer ) {
+        if ( countsValid ) {
+            activeLayerCount += layer.isLayerActive() ? 1 : 0;
+            visibleLayerCount += layer.isLayerVisible() ? 1 : 0;
+            lockedLayerCount += layer.isLayerLocked() ? 1 : 0;
+        }
+
+        // Appending doesn't move any other Layer, so its flags can be recorded
+        // directly.
+        if ( positionsValid && ( index == ( layers.size() - 1 ) ) ) {
+            setLayerFlags( index, layer );
+        }
+        else {
+            positionsValid = false;
+        }
+    }
+
+    // Note that the Locked Status of a Layer changed.
+    void layerLockedChanged( final int index, final boolean layerLocked, final boolean shared ) {
+        lockedLayerCount += layerFlagChanged( lockedLayerPositions,
+                                              index,
+                                              layerLocked,
+                                              shared );
+    }
+
+    // Note that a Layer was taken out of the collection at the given index.
+    void layerRemoved( final int index, final LayerProperties layer ) {
+        if ( countsValid ) {
+            activeLayerCount -= layer.isLayerActive() ? 1 : 0;
+            visibleLayerCount -= layer.isLayerVisible() ? 1 : 0;
+            lockedLayerCount -= layer.isLayerLocked() ? 1 : 0;
+        }
+
+        // Removing the last Layer doesn't move any other Layer, so its flags
+        // can be cleared directly.
+        if ( positionsValid && ( index == layers.size() ) ) {
+            activeLayerPositions.clear( index );
+            visibleLayerPositions.clear( index );
+            lockedLayerPositions.clear( index );
+        }
+        else {
+            positionsValid = false;
+        }
+    }
+
+    // Note that a Layer was replaced by another at the given index.
+    void layerReplaced( final int index,
+                        final LayerProperties oldLayer,
+                        final LayerProperties layer ) {
+        if ( countsValid ) {
+            activeLayerCount += ( layer.isLayerActive() ? 1 : 0 )
+                    - ( oldLayer.isLayerActive() ? 1 : 0 );
+            visibleLayerCount += ( layer.isLayerVisible() ? 1 : 0 )
+                    - ( oldLayer.isLayerVisible() ? 1 : 0 );
+            lockedLayerCount += ( layer.isLayerLocked() ? 1 : 0 )
+                    - ( oldLayer.isLayerLocked() ? 1 : 0 );
+        }
+
+        if ( positionsValid ) {
+            setLayerFlags( index, layer );
+        }
+    }
+
+    // Note that the Visible Status of a Layer changed.
+    void layerVisibleChanged( final int index, final boolean layerVisible, final boolean shared ) {
+        visibleLayerCount += layerFlagChanged( visibleLayerPositions,
+                                               index,
+                                               layerVisible,
+                                               shared );
+    }
+
+    // Patch the flag at the given position, returning the change in count.
+    private int layerFlagChanged( final BitSet layerPositions,
+                                  final int index,
+                                  final boolean layerFlag,
+                                  final boolean shared ) {
+        // NOTE: We don't know every position of a shared Layer without
+        // searching for it, so it's simpler to just rebuild everything later.
+        if ( shared ) {
+            positionsValid = false;
+            countsValid = false;
+            return 0;
+        }
+
+        if ( positionsValid ) {
+            layerPositions.set( index, layerFlag );
+        }
+
+        return layerFlag ? 1 : -1;
+    }
+
+    private void reindex() {
+        activeLayerPositions.clear();
+        visibleLayerPositions.clear();
+        lockedLayerPositions.clear();
+
+        final int numberOfLayers = layers.size();
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            setLayerFlags( layerIndex, layers.get( layerIndex ) );
+        }
+
+        activeLayerCount = activeLayerPositions.cardinality();
+        visibleLayerCount = visibleLayerPositions.cardinality();
+        lockedLayerCount = lockedLayerPositions.cardinality();
+
+        positionsValid = true;
+        countsValid = true;
+    }
+
+    private void setLayerFlags( final int index, final LayerProperties layer ) {
+        activeLayerPositions.set( index, layer.isLayerActive() );
+        visibleLayerPositions.set( index, layer.isLayerVisible() );
+        lockedLayerPositions.set( index, layer.isLayerLocked() );
+    }
+
+}
@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hashed index of Layers by Layer Name, for constant-time name lookup.
+// NOTE: Duplicate Layer Names violate the Layer policies but can still get
+// into a collection (such as via direct list edits), so we keep every Layer
+// that shares a name rather than silently dropping any of them.
+final class LayerNameIndex {
+
+    // Map each Layer Name to the first Layer indexed under that name.
+    private final Map< String, LayerProperties >         layersByName;
+
+    // Map each shared Layer Name to all of the Layers that use it.
+    private final Map< String, List< LayerProperties > > sharedLayersByName;
+
+    LayerNameIndex() {
+        layersByName = new HashMap<>();
+        sharedLayersByName = new HashMap<>();
+    }
+
+    void addLayer( final String layerName, final LayerProperties layer ) {
+        final LayerProperties indexedLayer = layersByName.putIfAbsent( layerName, layer );
+        if ( indexedLayer == null ) {
+            return;
+        }
+
+        List< LayerProperties > sharedLayers = sharedLayersByName.get( layerName );
+        if ( sharedLayers == null ) {
+            sharedLayers = new ArrayList<>( 2 );
+            sharedLayers.add( indexedLayer );
+            sharedLayersByName.put( layerName, sharedLayers );
+        }
+        sharedLayers.add( layer );
+    }
+
+    LayerProperties getLayer( final String layerName ) {
+        return layersByName.get( layerName );
+    }
+
+    int getLayerCount( final String layerName ) {
+        final List< LayerProperties > sharedLayers = sharedLayersByName.get( layerName );
+        if ( sharedLayers != null ) {
+            return sharedLayers.size();
+        }
+
+        return layersByName.containsKey( layerName ) ? 1 : 0;
+    }
+
+    // Get all of the Layers that share a Layer Name, or null if unshared.
+    List< LayerProperties > getSharedLayers( final String layerName ) {
+        return sharedLayersByName.get( layerName );
+    }
+
+    boolean hasLayerName( final String layerName ) {
+        return layersByName.containsKey( layerName );
+    }
+
+    void removeLayer( final String layerName, final LayerProperties layer ) {
+        final List< LayerProperties > sharedLayers = sharedLayersByName.get( layerName );
+        if ( sharedLayers == null ) {
+            layersByName.remove( layerName, layer );
+            return;
+        }
+
+        // NOTE: Layers do not override equality, so this is an identity match.
+        sharedLayers.remove( layer );
+        if ( sharedLayers.size() == 1 ) {
+            sharedLayersByName.remove( layerName );
+        }
+        layersByName.put( layerName, sharedLayers.get( 0 ) );
+    }
+
+}
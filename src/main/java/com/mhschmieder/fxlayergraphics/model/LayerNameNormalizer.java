@@ -0,0 +1,71 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+// Normalizer for Layer Names, which maps each Layer Name to the key that a
+// Layer Collection uses to decide whether two Layer Names are the same.
+// NOTE: Normalizers must map null to null, and should leave a trailing space
+// and Layer Number alone, so that numbered Layer Names still line up.
+@FunctionalInterface
+public interface LayerNameNormalizer {
+
+    // Compare Layer Names exactly, which is the default.
+    LayerNameNormalizer EXACT         = layerName -> layerName;
+
+    // Disregard leading and trailing white space.
+    LayerNameNormalizer TRIMMED       = layerName -> ( layerName != null )
+        ? layerName.trim()
+        : null;
+
+    // Disregard case, independently of the default locale.
+    LayerNameNormalizer CASE_FOLDED   = layerName -> ( layerName != null )
+        ? layerName.toUpperCase( Locale.ROOT ).toLowerCase( Locale.ROOT )
+        : null;
+
+    // Disregard differences in how accented characters are composed.
+    LayerNameNormalizer UNICODE_NFC   = layerName -> ( layerName != null )
+        ? Normalizer.normalize( layerName, Normalizer.Form.NFC )
+        : null;
+
+    // Compare Layer Names the way DWG and DXF sources do, where "WALLS" and
+    // "walls" are the same Layer.
+    LayerNameNormalizer CAD_INVARIANT = UNICODE_NFC.andThen( TRIMMED ).andThen( CASE_FOLDED );
+
+    String normalizeLayerName( final String layerName );
+
+    default LayerNameNormalizer andThen( final LayerNameNormalizer nextNormalizer ) {
+        return layerName -> nextNormalizer.normalizeLayerName( normalizeLayerName( layerName ) );
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Pool of Layer Names that is shared across all open documents, so that Layers
+// with the same Layer Name share a single String instance (e.g. "Layer 0", or
+// "A-WALL-FULL" from a common CAD standard), rather than each document holding
+// its own copy of every Layer Name.
+// NOTE: Pooled Layer Names are only held weakly, so they go away once no
+// Layer uses them anymore. Sharing instances also means that comparing Layer
+// Names usually succeeds on the reference check at the start of equals(),
+// without comparing characters.
+public final class LayerNamePool {
+
+    // Map each pooled Layer Name to a weak reference to its shared instance.
+    // NOTE: The keys are also held weakly, and they are the shared instances
+    // themselves, so an entry stays alive exactly as long as its Layer Name.
+    private static final Map< String, WeakReference< String > > LAYER_NAMES = new WeakHashMap<>();
+
+    // Get the shared instance of the supplied Layer Name, adding it to the
+    // pool if this is the first time it's been seen.
+    public static String intern( final String layerName ) {
+        if ( layerName == null ) {
+            return null;
+        }
+
+        synchronized ( LAYER_NAMES ) {
+            final WeakReference< String > pooledLayerNameReference = LAYER_NAMES.get( layerName );
+            final String pooledLayerName = ( pooledLayerNameReference != null )
+                ? pooledLayerNameReference.get()
+                : null;
+            if ( pooledLayerName != null ) {
+                return pooledLayerName;
+            }
+
+            LAYER_NAMES.put( layerName, new WeakReference<>( layerName ) );
+            return layerName;
+        }
+    }
+
+    // NOTE: The constructor is disabled, as this is a static class.
+    private LayerNamePool() {}
+
+}
@@ -0,0 +1,140 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+// Type-ahead suggestions for Layer Names, as an observable list (suitable for
+// a combo box) of the Layer Names in a Layer Collection that match the current
+// filter text, in case-insensitive order. The suggestions follow both the
+// filter text and any edits to the Layer Collection.
+// NOTE: The collection tells the suggestions as each distinct Layer Name comes
+// and goes, so they are patched one Layer Name at a time, and not at all for
+// edits that leave the Layer Names as they are (such as Layer Color edits).
+// Only a new filter text needs the matching Layer Names to be looked up again.
+public final class LayerNameSuggestions {
+
+    // Order the suggestions the same way as the trie lists Layer Names.
+    private static final Comparator< String >           LAYER_NAME_ORDER =
+            LayerNameTrie::compareLayerNames;
+
+    private final LayerCollection                       layerCollection;
+    private final boolean                               matchSegments;
+    private final StringProperty                        filterText;
+    private final ObservableList< String >              layerNames;
+    private final ObservableList< String >              unmodifiableLayerNames;
+
+    public LayerNameSuggestions( final LayerCollection pLayerCollection,
+                                 final boolean pMatchSegments ) {
+        layerCollection = pLayerCollection;
+        matchSegments = pMatchSegments;
+        filterText = new SimpleStringProperty( this, "filterText", "" ); //$NON-NLS-1$ //$NON-NLS-2$
+        layerNames = FXCollections.observableArrayList();
+        unmodifiableLayerNames = FXCollections.unmodifiableObservableList( layerNames );
+
+        // NOTE: The collection only holds the suggestions weakly, so that
+        // discarded suggestions don't linger for as long as the collection does.
+        filterText.addListener( observable -> updateLayerNames() );
+        layerCollection.addLayerNameSuggestions( this );
+
+        updateLayerNames();
+    }
+
+    public StringProperty filterTextProperty() {
+        return filterText;
+    }
+
+    public String getFilterText() {
+        return filterText.get();
+    }
+
+    // Get the live list of matching Layer Names.
+    public ObservableList< String > getLayerNames() {
+        return unmodifiableLayerNames;
+    }
+
+    public boolean isMatchSegments() {
+        return matchSegments;
+    }
+
+    // Add the supplied Layer Name, which is new to the collection, if it
+    // matches the filter text.
+    void layerNameAdded( final String layerName ) {
+        if ( !LayerNameTrie.hasPrefix( layerName, getPrefix(), matchSegments ) ) {
+            return;
+        }
+
+        final int layerNameIndex = Collections.binarySearch( layerNames,
+                                                             layerName,
+                                                             LAYER_NAME_ORDER );
+        if ( layerNameIndex < 0 ) {
+            layerNames.add( -layerNameIndex - 1, layerName );
+        }
+    }
+
+    // Remove the supplied Layer Name, which is no longer in the collection.
+    void layerNameRemoved( final String layerName ) {
+        final int layerNameIndex = Collections.binarySearch( layerNames,
+                                                             layerName,
+                                                             LAYER_NAME_ORDER );
+        if ( layerNameIndex >= 0 ) {
+            layerNames.remove( layerNameIndex );
+        }
+    }
+
+    public void setFilterText( final String pFilterText ) {
+        filterText.set( pFilterText );
+    }
+
+    private String getPrefix() {
+        final String prefix = getFilterText();
+        return ( prefix != null ) ? prefix : ""; //$NON-NLS-1$
+    }
+
+    private void updateLayerNames() {
+        final List< String > matchingLayerNames = layerCollection
+                .getLayerNamesWithPrefix( getPrefix(), matchSegments );
+        matchingLayerNames.sort( LAYER_NAME_ORDER );
+
+        // Avoid bothering listeners if nothing actually changed.
+        if ( !layerNames.equals( matchingLayerNames ) ) {
+            layerNames.setAll( matchingLayerNames );
+        }
+    }
+
+}
@@ -0,0 +1,345 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+
+// Prefix trie over Layer Names, for type-ahead filtering of Layer Names. Each
+// Layer Name is filed under its full name and also under the start of each of
+// its later name segments (e.g. "A-WALL-FULL" is filed under "a-wall-full",
+// "wall-full" and "full"), so that both kinds of query only have to visit the
+// part of the trie that holds the matching Layer Names. Each Layer Name is also
+// noted at every node where one of its name segments ends, so that the Layer
+// Names that contain a whole name segment (or run of name segments) can be
+// found without looking at any other Layer Names.
+// NOTE: Type-ahead is case-insensitive, so the trie is keyed on case-folded
+// characters, but it reports the Layer Names as they are.
+final class LayerNameTrie {
+
+    // Declare the characters that separate the segments of a Layer Name.
+    private static final String SEGMENT_DELIMITERS = " -_.|$"; //$NON-NLS-1$
+
+    private static final class Node {
+
+        // Child nodes, ordered by case-folded character.
+        private TreeMap< Character, Node > children;
+
+        // Layer Names (with counts) whose full name ends at this node.
+        private TreeMap< String, Integer > layerNames;
+
+        // Layer Names (with counts) that have a later segment ending here.
+        private TreeMap< String, Integer > segmentLayerNames;
+
+        // Layer Names (with counts) that have a run of whole segments that
+        // ends here.
+        private TreeMap< String, Integer > wholeSegmentLayerNames;
+
+        private boolean isEmpty() {
+            return ( children == null ) && ( layerNames == null ) && ( segmentLayerNames == null )
+                    && ( wholeSegmentLayerNames == null );
+        }
+
+    }
+
+    private final Node root;
+
+    LayerNameTrie() {
+        root = new Node();
+    }
+
+    // Compare Layer Names in the order that the trie lists them in for a
+    // prefix, which is by case-folded characters, and then as they are.
+    static int compareLayerNames( final String layerName1, final String layerName2 ) {
+        for ( int charIndex = 0, numberOfChars = Math.min( layerName1.length(),
+                                                           layerName2.length() ); charIndex < numberOfChars; charIndex++ ) {
+            final char character1 = foldCase( layerName1.charAt( charIndex ) );
+            final char character2 = foldCase( layerName2.charAt( charIndex ) );
+            if ( character1 != character2 ) {
+                return Character.compare( character1, character2 );
+            }
+        }
+
+        final int lengthDifference = layerName1.length() - layerName2.length();
+        return ( lengthDifference != 0 ) ? lengthDifference : layerName1.compareTo( layerName2 );
+    }
+
+    // Decrement the count for a Layer Name, returning null once none are left.
+    private static TreeMap< String, Integer > decrementLayerName( final TreeMap< String, Integer > layerNames,
+                                                                  final String layerName ) {
+        if ( layerNames == null ) {
+            return null;
+        }
+
+        layerNames.computeIfPresent( layerName, ( key, count ) -> ( count > 1 ) ? count - 1 : null );
+        return layerNames.isEmpty() ? null : layerNames;
+    }
+
+    private static char foldCase( final char character ) {
+        return Character.toLowerCase( Character.toUpperCase( character ) );
+    }
+
+    // Check whether the supplied Layer Name starts with the supplied prefix,
+    // or (if matching segments) has any name segment starting with it, just as
+    // for collectLayerNames() but without needing the Layer Name to be filed.
+    static boolean hasPrefix( final String layerName,
+                              final String prefix,
+                              final boolean matchSegments ) {
+        if ( ( layerName == null ) || layerName.isEmpty() ) {
+            return false;
+        }
+        if ( hasPrefix( layerName, 0, prefix ) ) {
+            return true;
+        }
+        if ( matchSegments ) {
+            for ( int charIndex = 1, numberOfChars = layerName
+                    .length(); charIndex < numberOfChars; charIndex++ ) {
+                if ( isSegmentStart( layerName, charIndex )
+                        && hasPrefix( layerName, charIndex, prefix ) ) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean hasPrefix( final String layerName,
+                                      final int startIndex,
+                                      final String prefix ) {
+        final int numberOfChars = prefix.length();
+        if ( ( layerName.length() - startIndex ) < numberOfChars ) {
+            return false;
+        }
+        for ( int charIndex = 0; charIndex < numberOfChars; charIndex++ ) {
+            if ( foldCase( layerName.charAt( startIndex + charIndex ) ) != foldCase( prefix
+                    .charAt( charIndex ) ) ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isSegmentDelimiter( final char character ) {
+        return SEGMENT_DELIMITERS.indexOf( character ) >= 0;
+    }
+
+    private static boolean isSegmentEnd( final String layerName, final int charIndex ) {
+        return !isSegmentDelimiter( layerName.charAt( charIndex ) )
+                && ( ( charIndex == ( layerName.length() - 1 ) )
+                        || isSegmentDelimiter( layerName.charAt( charIndex + 1 ) ) );
+    }
+
+    private static boolean isSegmentStart( final String layerName, final int charIndex ) {
+        return isSegmentDelimiter( layerName.charAt( charIndex - 1 ) )
+                && !isSegmentDelimiter( layerName.charAt( charIndex ) );
+    }
+
+    // File the supplied Layer Name, returning whether it is the first Layer
+    // with this name.
+    boolean addLayerName( final String layerName ) {
+        if ( ( layerName == null ) || layerName.isEmpty() ) {
+            return false;
+        }
+
+        final boolean newLayerName = addLayerName( layerName, 0 );
+        for ( int charIndex = 1, numberOfChars = layerName
+                .length(); charIndex < numberOfChars; charIndex++ ) {
+            if ( isSegmentStart( layerName, charIndex ) ) {
+                addLayerName( layerName, charIndex );
+            }
+        }
+
+        return newLayerName;
+    }
+
+    // Collect the Layer Names that start with the supplied prefix, or (if
+    // matching segments) that have any name segment starting with it.
+    void collectLayerNames( final String prefix,
+                            final boolean matchSegments,
+                            final Collection< String > layerNames ) {
+        Node node = root;
+        for ( int charIndex = 0, numberOfChars = prefix
+                .length(); ( node != null ) && ( charIndex < numberOfChars ); charIndex++ ) {
+            node = ( node.children != null )
+                ? node.children.get( foldCase( prefix.charAt( charIndex ) ) )
+                : null;
+        }
+        if ( node == null ) {
+            return;
+        }
+
+        // Walk the sub-trie in character order, without recursion.
+        final Deque< Node > pendingNodes = new ArrayDeque<>();
+        pendingNodes.push( node );
+        while ( !pendingNodes.isEmpty() ) {
+            final Node pendingNode = pendingNodes.pop();
+            if ( pendingNode.layerNames != null ) {
+                layerNames.addAll( pendingNode.layerNames.keySet() );
+            }
+            if ( matchSegments && ( pendingNode.segmentLayerNames != null ) ) {
+                layerNames.addAll( pendingNode.segmentLayerNames.keySet() );
+            }
+            if ( pendingNode.children != null ) {
+                for ( final Node child : pendingNode.children.descendingMap().values() ) {
+                    pendingNodes.push( child );
+                }
+            }
+        }
+    }
+
+    // Collect the Layer Names that contain the supplied name segment (or run
+    // of name segments) as a whole, rather than just the start of it, such as
+    // "WALL" for "A-WALL-FULL" but not for "A-WALLS".
+    void collectLayerNamesWithSegment( final String segment,
+                                       final Collection< String > layerNames ) {
+        Node node = root;
+        for ( int charIndex = 0, numberOfChars = segment
+                .length(); ( node != null ) && ( charIndex < numberOfChars ); charIndex++ ) {
+            node = ( node.children != null )
+                ? node.children.get( foldCase( segment.charAt( charIndex ) ) )
+                : null;
+        }
+        if ( ( node != null ) && ( node.wholeSegmentLayerNames != null ) ) {
+            layerNames.addAll( node.wholeSegmentLayerNames.keySet() );
+        }
+    }
+
+    // Take out the supplied Layer Name, returning whether it was the last
+    // Layer with this name.
+    boolean removeLayerName( final String layerName ) {
+        if ( ( layerName == null ) || layerName.isEmpty() ) {
+            return false;
+        }
+
+        final boolean lastLayerName = removeLayerName( layerName, 0 );
+        for ( int charIndex = 1, numberOfChars = layerName
+                .length(); charIndex < numberOfChars; charIndex++ ) {
+            if ( isSegmentStart( layerName, charIndex ) ) {
+                removeLayerName( layerName, charIndex );
+            }
+        }
+
+        return lastLayerName;
+    }
+
+    private boolean addLayerName( final String layerName, final int startIndex ) {
+        Node node = root;
+        for ( int charIndex = startIndex, numberOfChars = layerName
+                .length(); charIndex < numberOfChars; charIndex++ ) {
+            if ( node.children == null ) {
+                node.children = new TreeMap<>();
+            }
+            node = node.children.computeIfAbsent( foldCase( layerName.charAt( charIndex ) ),
+                                                  character -> new Node() );
+            if ( isSegmentEnd( layerName, charIndex ) ) {
+                if ( node.wholeSegmentLayerNames == null ) {
+                    node.wholeSegmentLayerNames = new TreeMap<>();
+                }
+                node.wholeSegmentLayerNames.merge( layerName, 1, Integer::sum );
+            }
+        }
+
+        if ( startIndex == 0 ) {
+            if ( node.layerNames == null ) {
+                node.layerNames = new TreeMap<>();
+            }
+            return node.layerNames.merge( layerName, 1, Integer::sum ).intValue() == 1;
+        }
+
+        if ( node.segmentLayerNames == null ) {
+            node.segmentLayerNames = new TreeMap<>();
+        }
+        node.segmentLayerNames.merge( layerName, 1, Integer::sum );
+
+        return false;
+    }
+
+    private boolean removeLayerName( final String layerName, final int startIndex ) {
+        // Keep track of the path, so that emptied nodes can be pruned.
+        final List< Node > path = new ArrayList<>( layerName.length() - startIndex + 1 );
+        Node node = root;
+        path.add( node );
+        for ( int charIndex = startIndex, numberOfChars = layerName
+                .length(); charIndex < numberOfChars; charIndex++ ) {
+            node = ( node.children != null )
+                ? node.children.get( foldCase( layerName.charAt( charIndex ) ) )
+                : null;
+            if ( node == null ) {
+                return false;
+            }
+            path.add( node );
+        }
+
+        for ( int charIndex = startIndex, numberOfChars = layerName
+                .length(); charIndex < numberOfChars; charIndex++ ) {
+            if ( isSegmentEnd( layerName, charIndex ) ) {
+                final Node segmentNode = path.get( charIndex - startIndex + 1 );
+                segmentNode.wholeSegmentLayerNames = decrementLayerName( segmentNode.wholeSegmentLayerNames,
+                                                                         layerName );
+            }
+        }
+
+        boolean lastLayerName = false;
+        if ( startIndex == 0 ) {
+            final boolean layerNameFiled = ( node.layerNames != null )
+                    && node.layerNames.containsKey( layerName );
+            node.layerNames = decrementLayerName( node.layerNames, layerName );
+            lastLayerName = layerNameFiled
+                    && ( ( node.layerNames == null ) || !node.layerNames.containsKey( layerName ) );
+        }
+        else {
+            node.segmentLayerNames = decrementLayerName( node.segmentLayerNames, layerName );
+        }
+
+        for ( int pathIndex = path.size() - 1; pathIndex > 0; pathIndex-- ) {
+            final Node pathNode = path.get( pathIndex );
+            if ( !pathNode.isEmpty() ) {
+                break;
+            }
+
+            final Node parentNode = path.get( pathIndex - 1 );
+            parentNode.children.remove( foldCase( layerName
+                    .charAt( startIndex + pathIndex - 1 ) ) );
+            if ( parentNode.children.isEmpty() ) {
+                parentNode.children = null;
+            }
+        }
+
+        return lastLayerName;
+    }
+
+}
@@ -0,0 +1,179 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.mhschmieder.fxlayergraphics.UniquefierAppendixCache;
+
+// Uniquefier engine for a Layer Collection, which remembers which uniquefier
+// numbers are already taken for each Layer Name candidate so that repeated
+// uniquefication of the same base name doesn't start over from scratch.
+// NOTE: A taken number is only ever recorded after it is verified against the
+// collection, and is forgotten as soon as the Layer Name that filled it is
+// released, so the lowest free number is always the one that is returned.
+// This preserves the reuse of deleted names.
+final class LayerNameUniquefier {
+
+    // Occupancy of the uniquefier numbers for one Layer Name candidate.
+    private static final class Occupancy {
+
+        private final String       layerNameCandidate;
+        private final NumberFormat uniquefierNumberFormat;
+        private final BitSet       takenNumbers;
+
+        private Occupancy( final String pLayerNameCandidate,
+                           final NumberFormat pUniquefierNumberFormat ) {
+            layerNameCandidate = pLayerNameCandidate;
+            uniquefierNumberFormat = pUniquefierNumberFormat;
+            takenNumbers = new BitSet();
+        }
+
+    }
+
+    // A uniquefier number that is taken by a particular Layer Name.
+    private static final class Slot {
+
+        private final Occupancy occupancy;
+        private final int       uniquefierNumber;
+
+        private Slot( final Occupancy pOccupancy, final int pUniquefierNumber ) {
+            occupancy = pOccupancy;
+            uniquefierNumber = pUniquefierNumber;
+        }
+
+    }
+
+    // Keep track of the collection, to verify numbers before recording them.
+    private final LayerCollection             layerCollection;
+
+    // Map each Layer Name candidate to the occupancy of its numbers.
+    private final Map< String, Occupancy >    occupancyByCandidate;
+
+    // Map each taken Layer Name key to the slots it fills, as it may fill
+    // slots for more than one candidate (e.g. "Layer 1" and "Layer 1 1").
+    private final Map< String, List< Slot > > slotsByLayerName;
+
+    LayerNameUniquefier( final LayerCollection pLayerCollection ) {
+        layerCollection = pLayerCollection;
+        occupancyByCandidate = new HashMap<>();
+        slotsByLayerName = new HashMap<>();
+    }
+
+    String getUniqueLayerName( final String layerNameCandidate,
+                               final NumberFormat uniquefierNumberFormat,
+                               final int uniquefierNumber,
+                               final LayerProperties excludeLayer ) {
+        // NOTE: The recorded occupancy is only valid for the number format it
+        // was recorded with, so start over if the caller switches formats.
+        // The new occupancy isn't registered until it records a taken number,
+        // as most candidates are unique on the first try.
+        Occupancy occupancy = occupancyByCandidate.get( layerNameCandidate );
+        if ( ( occupancy == null )
+                || ( occupancy.uniquefierNumberFormat != uniquefierNumberFormat ) ) {
+            occupancy = new Occupancy( layerNameCandidate, uniquefierNumberFormat );
+        }
+
+        // The excluded Layer doesn't block its own name, so find out whether
+        // that name is one of the recorded slots for this candidate.
+        final String excludeLayerName = ( excludeLayer != null )
+            ? excludeLayer.getLayerName()
+            : null;
+        final String excludeLayerNameKey = ( excludeLayer != null )
+            ? excludeLayer.getLayerNameKey( layerCollection.getLayerNameNormalizer(),
+                                            excludeLayerName )
+            : null;
+        final int excludeNumber = getSlotNumber( occupancy, excludeLayerNameKey );
+
+        // Walk the untaken numbers in increasing order, verifying each against
+        // the collection and recording any that turn out to be taken.
+        int number = occupancy.takenNumbers.nextClearBit( uniquefierNumber );
+        while ( true ) {
+            if ( ( excludeNumber >= uniquefierNumber ) && ( excludeNumber < number )
+                    && layerCollection.isLayerNameUnique( excludeLayerName, excludeLayer ) ) {
+                return layerNameCandidate + UniquefierAppendixCache
+                        .getUniquefierAppendix( excludeNumber, uniquefierNumberFormat );
+            }
+
+            final String layerName = layerNameCandidate
+                    + UniquefierAppendixCache.getUniquefierAppendix( number, uniquefierNumberFormat );
+            if ( layerCollection.isLayerNameUnique( layerName, excludeLayer ) ) {
+                return layerName;
+            }
+
+            if ( occupancy.takenNumbers.isEmpty() ) {
+                occupancyByCandidate.put( layerNameCandidate, occupancy );
+            }
+            occupancy.takenNumbers.set( number );
+            slotsByLayerName
+                    .computeIfAbsent( layerCollection.getLayerNameKey( layerName ),
+                                      layerNameKey -> new ArrayList<>( 1 ) )
+                    .add( new Slot( occupancy, number ) );
+
+            number = occupancy.takenNumbers.nextClearBit( number + 1 );
+        }
+    }
+
+    // Forget any slots filled by a Layer Name that is no longer in use.
+    void layerNameReleased( final String layerNameKey ) {
+        final List< Slot > slots = slotsByLayerName.remove( layerNameKey );
+        if ( slots == null ) {
+            return;
+        }
+
+        for ( final Slot slot : slots ) {
+            final Occupancy occupancy = slot.occupancy;
+            occupancy.takenNumbers.clear( slot.uniquefierNumber );
+            if ( occupancy.takenNumbers.isEmpty() ) {
+                occupancyByCandidate.remove( occupancy.layerNameCandidate, occupancy );
+            }
+        }
+    }
+
+    private int getSlotNumber( final Occupancy occupancy, final String layerNameKey ) {
+        final List< Slot > slots = slotsByLayerName.get( layerNameKey );
+        if ( slots != null ) {
+            for ( final Slot slot : slots ) {
+                if ( slot.occupancy == occupancy ) {
+                    return slot.uniquefierNumber;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+}
@@ -0,0 +1,227 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Layer Number allocator for a Layer Collection, which tracks the numbers in
+// use by Layer Names of the form "<prefix> <number>" for each prefix that has
+// been asked about, so that the next available number can be found without
+// scanning the collection.
+// NOTE: A number is in use for as long as any Layer carries the matching
+// Layer Name, so the collection only reports names that it adds or releases.
+// The collection reports normalized Layer Name keys rather than Layer Names.
+final class LayerNumberAllocator {
+
+    // Cap the bit set size, so that a stray huge number in a Layer Name can't
+    // blow up memory; any numbers past the cap are hashed instead.
+    private static final int MAXIMUM_BIT_SET_NUMBER = 1 << 20;
+
+    // The Layer Numbers in use for one Layer Name prefix.
+    private static final class UsedNumbers {
+
+        private final BitSet         smallNumbers;
+        private final Set< Integer > largeNumbers;
+
+        private UsedNumbers() {
+            smallNumbers = new BitSet();
+            largeNumbers = new HashSet<>();
+        }
+
+        private void clear( final int layerNumber ) {
+            if ( layerNumber < MAXIMUM_BIT_SET_NUMBER ) {
+                smallNumbers.clear( layerNumber );
+            }
+            else {
+                largeNumbers.remove( layerNumber );
+            }
+        }
+
+        private int nextClearNumber( final int layerNumber ) {
+            int number = smallNumbers.nextClearBit( layerNumber );
+            while ( ( number >= MAXIMUM_BIT_SET_NUMBER ) && largeNumbers.contains( number ) ) {
+                number++;
+            }
+
+            return number;
+        }
+
+        private void set( final int layerNumber ) {
+            if ( layerNumber < MAXIMUM_BIT_SET_NUMBER ) {
+                smallNumbers.set( layerNumber );
+            }
+            else {
+                largeNumbers.add( layerNumber );
+            }
+        }
+
+    }
+
+    // Keep track of the collection, to seed the numbers for new prefixes.
+    private final LayerCollection           layerCollection;
+
+    // Map each Layer Name prefix to the Layer Numbers in use for it.
+    private final Map< String, UsedNumbers > usedNumbersByPrefix;
+
+    LayerNumberAllocator( final LayerCollection pLayerCollection ) {
+        layerCollection = pLayerCollection;
+        usedNumbersByPrefix = new HashMap<>();
+    }
+
+    // Parse the Layer Number from a Layer Name of the form "<prefix> <number>"
+    // where the number is written just as Integer.toString() would write it,
+    // returning -1 if the Layer Name is not of that form.
+    private static int getLayerNumber( final String layerName, final int numberStart ) {
+        final int numberEnd = layerName.length();
+        if ( ( numberStart >= numberEnd ) || ( ( numberEnd - numberStart ) > 10 ) ) {
+            return -1;
+        }
+
+        // NOTE: Leading zeroes would not round-trip, so they don't count.
+        if ( ( layerName.charAt( numberStart ) == '0' ) && ( numberEnd - numberStart > 1 ) ) {
+            return -1;
+        }
+
+        long layerNumber = 0L;
+        for ( int charIndex = numberStart; charIndex < numberEnd; charIndex++ ) {
+            final char digit = layerName.charAt( charIndex );
+            if ( ( digit < '0' ) || ( digit > '9' ) ) {
+                return -1;
+            }
+            layerNumber = ( 10L * layerNumber ) + ( digit - '0' );
+        }
+
+        return ( layerNumber <= Integer.MAX_VALUE ) ? ( int ) layerNumber : -1;
+    }
+
+    // Get the next available Layer Name of the form "<prefix> <number>", using
+    // the supplied Layer Number as the lowest acceptable number.
+    String getNextAvailableLayerName( final String layerNamePrefix, final int layerNumber ) {
+        // NOTE: The collection reports normalized Layer Name keys, so we
+        // derive the normalized prefix from a sample numbered Layer Name. If
+        // the normalizer doesn't leave the number alone, we can't track the
+        // numbers, but we can still search for a unique Layer Name.
+        final String sampleLayerNameKey = layerCollection
+                .getLayerNameKey( layerNamePrefix + " 0" ); //$NON-NLS-1$
+        final UsedNumbers usedNumbers = ( ( sampleLayerNameKey != null )
+                && sampleLayerNameKey.endsWith( " 0" ) ) //$NON-NLS-1$
+                    ? getUsedNumbers( sampleLayerNameKey
+                            .substring( 0, sampleLayerNameKey.length() - 2 ) )
+                    : null;
+
+        // Double-check each number against the collection before using it.
+        int number = ( usedNumbers != null )
+            ? usedNumbers.nextClearNumber( layerNumber )
+            : layerNumber;
+        while ( true ) {
+            final String layerName = layerNamePrefix + " " + Integer.toString( number ); //$NON-NLS-1$
+            if ( layerCollection.isLayerNameUnique( layerName, null ) ) {
+                return layerName;
+            }
+
+            number = ( usedNumbers != null )
+                ? usedNumbers.nextClearNumber( number + 1 )
+                : number + 1;
+        }
+    }
+
+    // Get the Layer Numbers in use for the supplied normalized prefix.
+    private UsedNumbers getUsedNumbers( final String layerNamePrefixKey ) {
+        UsedNumbers usedNumbers = usedNumbersByPrefix.get( layerNamePrefixKey );
+        if ( usedNumbers == null ) {
+            // Seed the used numbers for a new prefix with one pass over the
+            // collection; from then on they are kept current incrementally.
+            usedNumbers = new UsedNumbers();
+            final LayerNameNormalizer layerNameNormalizer = layerCollection
+                    .getLayerNameNormalizer();
+            final int numberStart = layerNamePrefixKey.length() + 1;
+            for ( final LayerProperties layer : layerCollection ) {
+                final String layerNameKey = layer.getLayerNameKey( layerNameNormalizer,
+                                                                   layer.getLayerName() );
+                if ( ( layerNameKey != null ) && layerNameKey.startsWith( layerNamePrefixKey )
+                        && ( layerNameKey.length() > numberStart )
+                        && ( layerNameKey.charAt( numberStart - 1 ) == ' ' ) ) {
+                    final int usedNumber = getLayerNumber( layerNameKey, numberStart );
+                    if ( usedNumber >= 0 ) {
+                        usedNumbers.set( usedNumber );
+                    }
+                }
+            }
+            usedNumbersByPrefix.put( layerNamePrefixKey, usedNumbers );
+        }
+
+        return usedNumbers;
+    }
+
+    void layerNameAdded( final String layerNameKey ) {
+        updateUsedNumbers( layerNameKey, true );
+    }
+
+    void layerNameReleased( final String layerNameKey ) {
+        updateUsedNumbers( layerNameKey, false );
+    }
+
+    // Mark the number of the supplied Layer Name key as used or unused, if it
+    // is a numbered Layer Name with a prefix that we track.
+    private void updateUsedNumbers( final String layerName, final boolean used ) {
+        if ( ( layerName == null ) || usedNumbersByPrefix.isEmpty() ) {
+            return;
+        }
+
+        final int separatorIndex = layerName.lastIndexOf( ' ' );
+        if ( separatorIndex < 0 ) {
+            return;
+        }
+
+        final int layerNumber = getLayerNumber( layerName, separatorIndex + 1 );
+        if ( layerNumber < 0 ) {
+            return;
+        }
+
+        final UsedNumbers usedNumbers = usedNumbersByPrefix
+                .get( layerName.substring( 0, separatorIndex ) );
+        if ( usedNumbers == null ) {
+            return;
+        }
+
+        if ( used ) {
+            usedNumbers.set( layerNumber );
+        }
+        else {
+            usedNumbers.clear( layerNumber );
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Position index for a Layer Collection, which maps each Layer to its index in
+// the collection so that index queries don't have to search the collection.
+// NOTE: An insertion or removal in the middle moves every later Layer, so
+// rather than patching every later position right away, the move is logged as
+// a shift, and each position catches up with the logged shifts when it is next
+// queried. Each edit therefore costs constant time, and each query at most one
+// step per shift logged since that Layer was last queried. The log is bounded,
+// and once full, every position is brought up to date in one pass so that the
+// log can start afresh, so a pass over the Layers is only made once per that
+// many insertions or removals in the middle, rather than after each one.
+// Appending (the common case for imports) doesn't move any other Layer, so it
+// never logs a shift.
+final class LayerPositionIndex {
+
+    // Declare the number of shifts to log before bringing every position up to
+    // date, which bounds the cost of a query.
+    private static final int MAXIMUM_SHIFT_COUNT = 64;
+
+    // The position of a Layer, as of a given number of logged shifts.
+    private static final class LayerPosition {
+
+        // The index of the first occurrence of the Layer in the collection.
+        private int position;
+
+        // The number of times that the Layer occurs in the collection.
+        private int occurrenceCount;
+
+        // The number of logged shifts that the position already allows for.
+        private int shiftCount;
+
+        private LayerPosition( final int pPosition, final int pShiftCount ) {
+            position = pPosition;
+            occurrenceCount = 1;
+            shiftCount = pShiftCount;
+        }
+
+    }
+
+    // Keep track of the Layers in collection order.
+    private final List< LayerProperties >               layers;
+
+    // Map each Layer to the position of its first occurrence in the collection.
+    private final Map< LayerProperties, LayerPosition > positions;
+
+    // The logged shifts, each of which moves every position from its start
+    // onward by its delta.
+    private final int[]                                 shiftStarts;
+    private final int[]                                 shiftDeltas;
+    private int                                         shiftCount;
+
+    // Whether the positions must be worked out again from scratch, such as
+    // after the collection has been reordered.
+    private boolean                                     positionsStale;
+
+    LayerPositionIndex( final List< LayerProperties > pLayers ) {
+        layers = pLayers;
+        positions = new IdentityHashMap<>();
+        shiftStarts = new int[ MAXIMUM_SHIFT_COUNT ];
+        shiftDeltas = new int[ MAXIMUM_SHIFT_COUNT ];
+        shiftCount = 0;
+        positionsStale = false;
+    }
+
+    int indexOf( final LayerProperties layer ) {
+        if ( positionsStale ) {
+            reindex();
+        }
+
+        final LayerPosition layerPosition = positions.get( layer );
+        return ( layerPosition != null ) ? getPosition( layerPosition ) : -1;
+    }
+
+    // Note that every position may have moved, such as after a sort.
+    void invalidate() {
+        positions.clear();
+        shiftCount = 0;
+        positionsStale = true;
+    }
+
+    // Note that a Layer was inserted into the collection at the given index.
+    void layerAdded( final int index, final LayerProperties layer ) {
+        if ( positionsStale ) {
+            return;
+        }
+
+        // Appending doesn't move any other Layer, so no shift is needed.
+        if ( index < ( layers.size() - 1 ) ) {
+            logShift( index, 1 );
+        }
+
+        final LayerPosition layerPosition = positions.get( layer );
+        if ( layerPosition == null ) {
+            positions.put( layer, new LayerPosition( index, shiftCount ) );
+        }
+        else {
+            layerPosition.occurrenceCount++;
+            if ( index < getPosition( layerPosition ) ) {
+                layerPosition.position = index;
+            }
+        }
+    }
+
+    // Note that a Layer was taken out of the collection at the given index.
+    void layerRemoved( final int index, final LayerProperties layer ) {
+        if ( positionsStale ) {
+            return;
+        }
+
+        final LayerPosition layerPosition = positions.get( layer );
+        final int position = ( layerPosition != null ) ? getPosition( layerPosition ) : -1;
+
+        // Removing the last Layer doesn't move any other Layer.
+        if ( index < layers.size() ) {
+            logShift( index + 1, -1 );
+        }
+
+        if ( layerPosition == null ) {
+            return;
+        }
+        if ( --layerPosition.occurrenceCount == 0 ) {
+            positions.remove( layer );
+        }
+        else if ( position == index ) {
+            // NOTE: The Layer also occurs later in the collection, which is
+            // rare enough that it is simply searched for.
+            layerPosition.position = layers.subList( index, layers.size() )
+                    .indexOf( layer ) + index;
+            layerPosition.shiftCount = shiftCount;
+        }
+    }
+
+    // Note that a Layer was replaced by another at the given index.
+    void layerReplaced( final int index,
+                        final LayerProperties oldLayer,
+                        final LayerProperties layer ) {
+        if ( positionsStale || ( oldLayer == layer ) ) {
+            return;
+        }
+
+        // NOTE: Replacing doesn't move any other Layer, so this is done as an
+        // append at the given index, without logging any shift.
+        final LayerPosition oldLayerPosition = positions.get( oldLayer );
+        if ( oldLayerPosition != null ) {
+            final int oldPosition = getPosition( oldLayerPosition );
+            if ( --oldLayerPosition.occurrenceCount == 0 ) {
+                positions.remove( oldLayer );
+            }
+            else if ( oldPosition == index ) {
+                oldLayerPosition.position = layers
+                        .subList( index, layers.size() ).indexOf( oldLayer ) + index;
+            }
+        }
+
+        final LayerPosition layerPosition = positions.get( layer );
+        if ( layerPosition == null ) {
+            positions.put( layer, new LayerPosition( index, shiftCount ) );
+        }
+        else {
+            layerPosition.occurrenceCount++;
+            if ( index < getPosition( layerPosition ) ) {
+                layerPosition.position = index;
+            }
+        }
+    }
+
+    // Bring the supplied position up to date with the logged shifts.
+    private int getPosition( final LayerPosition layerPosition ) {
+        int position = layerPosition.position;
+        for ( int shift = layerPosition.shiftCount; shift < shiftCount; shift++ ) {
+            if ( position >= shiftStarts[ shift ] ) {
+                position += shiftDeltas[ shift ];
+            }
+        }
+        layerPosition.position = position;
+        layerPosition.shiftCount = shiftCount;
+
+        return position;
+    }
+
+    // Log a shift of every position from the given start onward, bringing
+    // every position up to date first if the log is full.
+    private void logShift( final int shiftStart, final int shiftDelta ) {
+        if ( shiftCount == MAXIMUM_SHIFT_COUNT ) {
+            for ( final LayerPosition layerPosition : positions.values() ) {
+                getPosition( layerPosition );
+                layerPosition.shiftCount = 0;
+            }
+            shiftCount = 0;
+        }
+
+        shiftStarts[ shiftCount ] = shiftStart;
+        shiftDeltas[ shiftCount ] = shiftDelta;
+        shiftCount++;
+    }
+
+    private void reindex() {
+        for ( int layerIndex = 0, numberOfLayers = layers
+                .size(); layerIndex < numberOfLayers; layerIndex++ ) {
+            final LayerProperties layer = layers.get( layerIndex );
+            final LayerPosition layerPosition = positions.get( layer );
+            if ( layerPosition != null ) {
+                layerPosition.occurrenceCount++;
+            }
+            else {
+                positions.put( layer, new LayerPosition( layerIndex, 0 ) );
+            }
+        }
+
+        positionsStale = false;
+    }
+
+}
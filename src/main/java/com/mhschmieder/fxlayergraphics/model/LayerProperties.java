@@ -33,31 +33,68 @@ package com.mhschmieder.fxlayergraphics.model;
 import com.mhschmieder.fxlayergraphics.LayerUtilities;
 
 import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleBooleanProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.scene.paint.Color;
 
+// NOTE: The observable properties are only made when first asked for, as many
+// Layers (such as in batch conversion) are never bound or listened to. Until
+// then, the values are held in plain fields; afterwards, the properties hold
+// them, and the plain fields are no longer used.
+// NOTE: The Active, Visible and Locked Status are packed together as bits of
+// one Layer Flags word, so that they can be compared or copied in one go. The
+// per-flag properties are views of the Layer Flags property, and are kept in
+// step with it both ways.
+// NOTE: The Layer Color is held as an index into the shared Layer Color
+// Palette, which is kept up to date even once the Layer Color property has
+// been made, so that renderers can batch Layers by palette index.
 public final class LayerProperties implements Comparable< LayerProperties > {
 
-    private final StringProperty          layerName;
-    private final ObjectProperty< Color > layerColor;
-    private final BooleanProperty         layerActive;
-    private final BooleanProperty         layerVisible;
-    private final BooleanProperty         layerLocked;
+    // Declare the bits of the Layer Flags word.
+    public static final int               LAYER_ACTIVE_FLAG  = 0x1;
+    public static final int               LAYER_VISIBLE_FLAG = 0x2;
+    public static final int               LAYER_LOCKED_FLAG  = 0x4;
+
+    private String                        layerNameValue;
+    private Color                         layerColorValue;
+    private int                           layerFlagsValue;
+
+    private StringProperty                layerName;
+    private ObjectProperty< Color >       layerColor;
+    private IntegerProperty               layerFlags;
+    private BooleanProperty               layerActive;
+    private BooleanProperty               layerVisible;
+    private BooleanProperty               layerLocked;
+
+    // Cache whether the Layer Name is blank, as that is checked far more often
+    // than the Layer Name changes and would otherwise cost a trim() each time.
+    private boolean                       layerNameBlank;
+
+    // Cache the normalized key of the Layer Name, along with the normalizer
+    // and the Layer Name that it was derived from, so that normalizing Layer
+    // Collections only pay for normalization once per rename.
+    private LayerNameNormalizer           layerNameKeyNormalizer;
+    private String                        layerNameKeySource;
+    private String                        layerNameKey;
 
     public LayerProperties( final String pLayerName,
                             final Color pLayerColor,
                             final boolean pLayerActive,
                             final boolean pLayerVisible,
                             final boolean pLayerLocked ) {
-        layerName = new SimpleStringProperty( pLayerName );
-        layerColor = new SimpleObjectProperty<>( pLayerColor );
-        layerActive = new SimpleBooleanProperty( pLayerActive );
-        layerVisible = new SimpleBooleanProperty( pLayerVisible );
-        layerLocked = new SimpleBooleanProperty( pLayerLocked );
+        // NOTE: Layer Names are pooled and Layer Colors are interned, so that
+        // identical names and colors share storage.
+        layerNameValue = LayerNamePool.intern( pLayerName );
+        layerNameBlank = LayerUtilities.isLayerNameBlank( layerNameValue );
+        layerColorValue = LayerColorPalette.intern( pLayerColor );
+        layerFlagsValue = ( pLayerActive ? LAYER_ACTIVE_FLAG : 0 )
+                | ( pLayerVisible ? LAYER_VISIBLE_FLAG : 0 )
+                | ( pLayerLocked ? LAYER_LOCKED_FLAG : 0 );
     }
 
     // NOTE: This is implemented strictly for sorting by Layer Name.
@@ -79,63 +116,194 @@ public final class LayerProperties implements Comparable< LayerProperties > {
     }
 
     public Color getLayerColor() {
-        return layerColor.get();
+        return ( layerColor != null )
+            ? layerColor.get()
+            : layerColorValue;
+    }
+
+    // Get the 32-bit ARGB form of the Layer Color, such as for renderers that
+    // work with packed pixels.
+    public int getLayerColorArgb() {
+        return LayerColorPalette.toArgb( getLayerColor() );
+    }
+
+    public int getLayerFlags() {
+        return ( layerFlags != null ) ? layerFlags.get() : layerFlagsValue;
     }
 
     public String getLayerName() {
-        return layerName.get();
+        return ( layerName != null ) ? layerName.get() : layerNameValue;
+    }
+
+    // Get the normalized key for the supplied Layer Name, which is either the
+    // current Layer Name or the one it was just renamed from.
+    String getLayerNameKey( final LayerNameNormalizer layerNameNormalizer,
+                            final String pLayerName ) {
+        // NOTE: The source is compared by identity, as it is always the very
+        // same String that was held by the Layer Name property.
+        if ( ( layerNameNormalizer != layerNameKeyNormalizer )
+                || ( pLayerName != layerNameKeySource ) ) {
+            layerNameKeyNormalizer = layerNameNormalizer;
+            layerNameKeySource = pLayerName;
+            layerNameKey = layerNameNormalizer.normalizeLayerName( pLayerName );
+        }
+
+        return layerNameKey;
     }
 
     public boolean isLayerActive() {
-        return layerActive.get();
+        return ( getLayerFlags() & LAYER_ACTIVE_FLAG ) != 0;
+    }
+
+    // Find out whether the Layer Name is null, empty, or only white space.
+    public boolean isLayerNameBlank() {
+        return layerNameBlank;
     }
 
     public boolean isLayerLocked() {
-        return layerLocked.get();
+        return ( getLayerFlags() & LAYER_LOCKED_FLAG ) != 0;
     }
 
     public boolean isLayerVisible() {
-        return layerVisible.get();
+        return ( getLayerFlags() & LAYER_VISIBLE_FLAG ) != 0;
     }
 
+    // NOTE: Each property knows its owning Layer as its bean, so that
+    // collection-level listeners can be shared across all Layers.
     public BooleanProperty layerActiveProperty() {
+        if ( layerActive == null ) {
+            layerActive = makeLayerFlagProperty( "layerActive", LAYER_ACTIVE_FLAG ); //$NON-NLS-1$
+        }
         return layerActive;
     }
 
     public ObjectProperty< Color > layerColorProperty() {
+        if ( layerColor == null ) {
+            layerColor = new SimpleObjectProperty< Color >( this,
+                                                            "layerColor", //$NON-NLS-1$
+                                                            layerColorValue );
+            layerColorValue = null;
+        }
         return layerColor;
     }
 
+    public IntegerProperty layerFlagsProperty() {
+        if ( layerFlags == null ) {
+            layerFlags = new SimpleIntegerProperty( this, "layerFlags", layerFlagsValue ) { //$NON-NLS-1$
+                @Override
+                protected void invalidated() {
+                    syncLayerFlagProperties( get() );
+                }
+            };
+        }
+        return layerFlags;
+    }
+
     public BooleanProperty layerLockedProperty() {
+        if ( layerLocked == null ) {
+            layerLocked = makeLayerFlagProperty( "layerLocked", LAYER_LOCKED_FLAG ); //$NON-NLS-1$
+        }
         return layerLocked;
     }
 
     public StringProperty layerNameProperty() {
+        if ( layerName == null ) {
+            layerName = new SimpleStringProperty( this, "layerName", layerNameValue ) { //$NON-NLS-1$
+                @Override
+                protected void invalidated() {
+                    layerNameBlank = LayerUtilities.isLayerNameBlank( get() );
+                }
+            };
+            layerNameValue = null;
+        }
         return layerName;
     }
 
     public BooleanProperty layerVisibleProperty() {
+        if ( layerVisible == null ) {
+            layerVisible = makeLayerFlagProperty( "layerVisible", LAYER_VISIBLE_FLAG ); //$NON-NLS-1$
+        }
         return layerVisible;
     }
 
     public void setLayerActive( final boolean pLayerActive ) {
-        layerActive.set( pLayerActive );
+        setLayerFlag( LAYER_ACTIVE_FLAG, pLayerActive );
     }
 
     public void setLayerColor( final Color pLayerColor ) {
-        layerColor.set( pLayerColor );
+        if ( layerColor != null ) {
+            layerColor.set( LayerColorPalette.intern( pLayerColor ) );
+        }
+        else {
+            layerColorValue = LayerColorPalette.intern( pLayerColor );
+        }
+    }
+
+    // Set all of the Layer Flags in one go, such as to copy them from another
+    // Layer.
+    public void setLayerFlags( final int pLayerFlags ) {
+        if ( layerFlags != null ) {
+            layerFlags.set( pLayerFlags );
+        }
+        else {
+            layerFlagsValue = pLayerFlags;
+        }
     }
 
     public void setLayerLocked( final boolean pLayerLocked ) {
-        layerLocked.set( pLayerLocked );
+        setLayerFlag( LAYER_LOCKED_FLAG, pLayerLocked );
     }
 
     public void setLayerName( final String pLayerName ) {
-        layerName.set( pLayerName );
+        final String pooledLayerName = LayerNamePool.intern( pLayerName );
+        if ( layerName != null ) {
+            layerName.set( pooledLayerName );
+        }
+        else {
+            layerNameValue = pooledLayerName;
+            layerNameBlank = LayerUtilities.isLayerNameBlank( pooledLayerName );
+        }
     }
 
     public void setLayerVisible( final boolean pLayerVisible ) {
-        layerVisible.set( pLayerVisible );
+        setLayerFlag( LAYER_VISIBLE_FLAG, pLayerVisible );
+    }
+
+    // Make a property that views one bit of the Layer Flags.
+    // NOTE: The view writes through to the Layer Flags property, which then
+    // syncs the other views; views that already hold the new value are left
+    // alone, so this doesn't recurse or trip over a bound view.
+    private BooleanProperty makeLayerFlagProperty( final String propertyName,
+                                                   final int layerFlag ) {
+        final IntegerProperty flagsProperty = layerFlagsProperty();
+        return new SimpleBooleanProperty( this,
+                                          propertyName,
+                                          ( flagsProperty.get() & layerFlag ) != 0 ) {
+            @Override
+            protected void invalidated() {
+                setLayerFlag( layerFlag, get() );
+            }
+        };
+    }
+
+    private void setLayerFlag( final int layerFlag, final boolean layerFlagSet ) {
+        final int oldLayerFlags = getLayerFlags();
+        setLayerFlags( layerFlagSet ? oldLayerFlags | layerFlag : oldLayerFlags & ~layerFlag );
+    }
+
+    private void syncLayerFlagProperties( final int pLayerFlags ) {
+        final boolean layerActiveSet = ( pLayerFlags & LAYER_ACTIVE_FLAG ) != 0;
+        if ( ( layerActive != null ) && ( layerActive.get() != layerActiveSet ) ) {
+            layerActive.set( layerActiveSet );
+        }
+        final boolean layerVisibleSet = ( pLayerFlags & LAYER_VISIBLE_FLAG ) != 0;
+        if ( ( layerVisible != null ) && ( layerVisible.get() != layerVisibleSet ) ) {
+            layerVisible.set( layerVisibleSet );
+        }
+        final boolean layerLockedSet = ( pLayerFlags & LAYER_LOCKED_FLAG ) != 0;
+        if ( ( layerLocked != null ) && ( layerLocked.get() != layerLockedSet ) ) {
+            layerLocked.set( layerLockedSet );
+        }
     }
 
 }
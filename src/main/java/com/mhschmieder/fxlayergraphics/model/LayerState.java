@@ -0,0 +1,125 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javafx.scene.paint.Color;
+
+// A saved Layer State, such as "plumbing only" or "print set", which captures
+// the Visible Status, Locked Status and Layer Color of every Layer in a Layer
+// Collection so that they can all be restored in one go later on.
+// NOTE: Layers are identified by reference rather than by name, so that a
+// saved state survives renaming. The flags are packed as bits, and the Layer
+// Colors are the shared instances from the Layer Color Palette, as drawings
+// typically have many more Layers than colors.
+public final class LayerState {
+
+    // Map each captured Layer to its slot in the packed state.
+    private final Map< LayerProperties, Integer > layerSlots;
+
+    // The slots of the captured Layers that were Visible.
+    private final BitSet                          visibleLayerSlots;
+
+    // The slots of the captured Layers that were Locked.
+    private final BitSet                          lockedLayerSlots;
+
+    // The Layer Color of each captured Layer, by slot.
+    private final Color[]                         layerColors;
+
+    public LayerState( final List< LayerProperties > layerCollection ) {
+        layerSlots = new IdentityHashMap<>( layerCollection.size() );
+        visibleLayerSlots = new BitSet( layerCollection.size() );
+        lockedLayerSlots = new BitSet( layerCollection.size() );
+
+        final Color[] capturedLayerColors = new Color[ layerCollection.size() ];
+        for ( final LayerProperties layer : layerCollection ) {
+            // NOTE: A Layer that is in the collection more than once only needs
+            // to be captured once.
+            final int layerSlot = layerSlots.size();
+            if ( layerSlots.putIfAbsent( layer, Integer.valueOf( layerSlot ) ) != null ) {
+                continue;
+            }
+
+            visibleLayerSlots.set( layerSlot, layer.isLayerVisible() );
+            lockedLayerSlots.set( layerSlot, layer.isLayerLocked() );
+            capturedLayerColors[ layerSlot ] = layer.getLayerColor();
+        }
+
+        layerColors = ( capturedLayerColors.length == layerSlots.size() )
+            ? capturedLayerColors
+            : Arrays.copyOf( capturedLayerColors, layerSlots.size() );
+    }
+
+    public int getLayerCount() {
+        return layerSlots.size();
+    }
+
+    public boolean hasLayer( final LayerProperties layer ) {
+        return layerSlots.containsKey( layer );
+    }
+
+    // Restore the supplied Layer to its captured state, writing only the
+    // values that differ from the current ones. Layers that weren't captured
+    // (such as ones added later) are left as they are.
+    public void restoreLayer( final LayerProperties layer ) {
+        final Integer layerSlot = layerSlots.get( layer );
+        if ( layerSlot == null ) {
+            return;
+        }
+
+        // NOTE: The Visible and Locked Status are written together as one
+        // Layer Flags word, leaving the Active Status as it is.
+        final int slot = layerSlot.intValue();
+        final int oldLayerFlags = layer.getLayerFlags();
+        int layerFlags = oldLayerFlags & LayerProperties.LAYER_ACTIVE_FLAG;
+        if ( visibleLayerSlots.get( slot ) ) {
+            layerFlags |= LayerProperties.LAYER_VISIBLE_FLAG;
+        }
+        if ( lockedLayerSlots.get( slot ) ) {
+            layerFlags |= LayerProperties.LAYER_LOCKED_FLAG;
+        }
+        if ( layerFlags != oldLayerFlags ) {
+            layer.setLayerFlags( layerFlags );
+        }
+
+        final Color layerColor = layerColors[ slot ];
+        if ( !Objects.equals( layerColor, layer.getLayerColor() ) ) {
+            layer.setLayerColor( layerColor );
+        }
+    }
+
+}
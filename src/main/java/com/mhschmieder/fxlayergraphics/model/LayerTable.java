@@ -0,0 +1,715 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+import com.mhschmieder.fxlayergraphics.UniquefierAppendixCache;
+
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// A headless table of Layers, for server-side drawing conversion and other
+// batch work that never binds to the Layers, so has no use for observable
+// properties. The Layers are stored column by column: the Layer Names in one
+// array, the Layer Colors as 32-bit ARGB values in another, and the Visible
+// and Locked Status as bit sets, with a hash index of the Layer Names.
+// NOTE: The same policies are enforced as for observable Layer Collections:
+// the Default Layer is always at index 0, Layer Names are made unique when
+// added or renamed, only one Layer is Active at a time, and a Hidden Layer
+// can't be made Active. As there is only ever one Active Layer, it is tracked
+// by index rather than by a bit set.
+// NOTE: This class is not thread-safe, as it is meant to be owned by a single
+// conversion task.
+// NOTE: A Layer Table can also back a Layer Table Collection, whose row
+// edits are written through as they are, leaving the policies to the caller
+// just as for any other observable Layer Collection. While wrapped this way,
+// the table should only be edited through the collection, and it might have
+// no Active Layer, in which case the Active Layer index is -1.
+public final class LayerTable {
+
+    // Declare the initial number of Layers to make room for.
+    private static final int MINIMUM_LAYER_CAPACITY = 16;
+
+    // The number of Layers in the table.
+    private int              layerCount;
+
+    // The Layer Names, by index.
+    private String[]         layerNames;
+
+    // The Layer Colors in 32-bit ARGB form, by index.
+    private int[]            layerColorArgbs;
+
+    // The Visible Status of each Layer, as one bit per Layer.
+    private long[]           visibleLayerBits;
+
+    // The Locked Status of each Layer, as one bit per Layer.
+    private long[]           lockedLayerBits;
+
+    // The index of the Active Layer.
+    private int              activeLayerIndex;
+
+    // Open-addressed hash index of the Layer Names, whose slots hold the
+    // index of the Layer plus one, so that zero marks an empty slot.
+    private int[]            layerNameSlots;
+
+    // Whether any Layer Name is held by more than one Layer, which can only
+    // happen when copying from a Layer Collection that isn't unique. The hash
+    // index then only holds the first such Layer, and is rebuilt when a Layer
+    // Name is removed from it, so that the next one can take over.
+    private boolean          layerNamesShared;
+
+    // Whether rows have moved since the hash index was last built, in which
+    // case it is rebuilt just once when next needed, rather than after every
+    // row that is added or removed in the middle of the table.
+    private boolean          layerNameIndexStale;
+
+    // Make a table that only contains the Default Layer.
+    public LayerTable() {
+        this( MINIMUM_LAYER_CAPACITY );
+
+        addLayerRow( LayerUtilities.DEFAULT_LAYER_NAME,
+                     LayerColorPalette.toArgb( LayerUtilities.LAYER_COLOR_DEFAULT ),
+                     true,
+                     false );
+        activeLayerIndex = LayerUtilities.DEFAULT_LAYER_INDEX;
+    }
+
+    // Make a table that is a copy of the supplied Layer Collection.
+    // NOTE: The Layer Names are copied as they are, rather than being made
+    // unique, so that the table round-trips faithfully. The first Active
+    // Layer stays Active, or the Default Layer if there isn't one.
+    public LayerTable( final List< LayerProperties > layerCollection ) {
+        this( layerCollection.size() );
+
+        if ( layerCollection.isEmpty() ) {
+            addLayerRow( LayerUtilities.DEFAULT_LAYER_NAME,
+                         LayerColorPalette.toArgb( LayerUtilities.LAYER_COLOR_DEFAULT ),
+                         true,
+                         false );
+        }
+
+        activeLayerIndex = -1;
+        for ( final LayerProperties layer : layerCollection ) {
+            final int layerIndex = addLayerRow( layer.getLayerName(),
+                                                layer.getLayerColorArgb(),
+                                                layer.isLayerVisible(),
+                                                layer.isLayerLocked() );
+            if ( ( activeLayerIndex < 0 ) && layer.isLayerActive() ) {
+                activeLayerIndex = layerIndex;
+            }
+        }
+        if ( activeLayerIndex < 0 ) {
+            activeLayerIndex = LayerUtilities.DEFAULT_LAYER_INDEX;
+        }
+    }
+
+    private LayerTable( final int layerCapacity ) {
+        final int capacity = Math.max( layerCapacity, MINIMUM_LAYER_CAPACITY );
+        layerCount = 0;
+        layerNames = new String[ capacity ];
+        layerColorArgbs = new int[ capacity ];
+        visibleLayerBits = new long[ getBitWordCount( capacity ) ];
+        lockedLayerBits = new long[ getBitWordCount( capacity ) ];
+        layerNameSlots = new int[ getLayerNameSlotCount( capacity ) ];
+        layerNamesShared = false;
+        layerNameIndexStale = false;
+    }
+
+    // Add a Layer to the end of the table, enforcing name-uniqueness just as
+    // LayerUtilities.addLayer() does, and return its index.
+    // NOTE: New Layers are never Active; use setActiveLayer() for that.
+    public int addLayer( final String layerNameCandidate,
+                         final int layerColorArgb,
+                         final boolean layerVisible,
+                         final boolean layerLocked,
+                         final NumberFormat uniquefierNumberFormat ) {
+        // Use the uniquefied Layer Name Default if the candidate is blank,
+        // always with a uniquefier appendix so that none of them are
+        // unadorned (even the first); otherwise leave unadorned if possible.
+        final int excludeLayerIndex = -1;
+        final String layerName = LayerUtilities.isLayerNameBlank( layerNameCandidate )
+            ? getUniqueLayerName( LayerUtilities.LAYER_NAME_DEFAULT,
+                                  uniquefierNumberFormat,
+                                  1,
+                                  excludeLayerIndex )
+            : getUniqueLayerName( layerNameCandidate,
+                                  uniquefierNumberFormat,
+                                  0,
+                                  excludeLayerIndex );
+
+        return addLayerRow( layerName, layerColorArgb, layerVisible, layerLocked );
+    }
+
+    // Replace the contents of the supplied Layer Collection with the Layers
+    // in this table, as a single change.
+    public void copyToLayerCollection( final ObservableList< LayerProperties > layerCollection ) {
+        final LayerProperties[] layers = new LayerProperties[ layerCount ];
+        for ( int layerIndex = 0; layerIndex < layerCount; layerIndex++ ) {
+            layers[ layerIndex ] = new LayerProperties( layerNames[ layerIndex ],
+                                                        getLayerColor( layerIndex ),
+                                                        layerIndex == activeLayerIndex,
+                                                        isLayerVisible( layerIndex ),
+                                                        isLayerLocked( layerIndex ) );
+        }
+
+        layerCollection.setAll( layers );
+    }
+
+    public int getActiveLayerIndex() {
+        return activeLayerIndex;
+    }
+
+    public int getHiddenLayerCount() {
+        return layerCount - getVisibleLayerCount();
+    }
+
+    // Get the shared instance of the Layer Color at the supplied index.
+    public Color getLayerColor( final int layerIndex ) {
+        return LayerColorPalette.getLayerColorForArgb( layerColorArgbs[ layerIndex ] );
+    }
+
+    public int getLayerColorArgb( final int layerIndex ) {
+        return layerColorArgbs[ layerIndex ];
+    }
+
+    public int getLayerCount() {
+        return layerCount;
+    }
+
+    // Get the Active, Visible and Locked Status of the Layer at the supplied
+    // index, packed as for LayerProperties.getLayerFlags().
+    public int getLayerFlags( final int layerIndex ) {
+        return ( isLayerActive( layerIndex ) ? LayerProperties.LAYER_ACTIVE_FLAG : 0 )
+                | ( isLayerVisible( layerIndex ) ? LayerProperties.LAYER_VISIBLE_FLAG : 0 )
+                | ( isLayerLocked( layerIndex ) ? LayerProperties.LAYER_LOCKED_FLAG : 0 );
+    }
+
+    // Get the index of the Layer with the supplied Layer Name, or -1 if there
+    // is no such Layer.
+    public int getLayerIndex( final String layerName ) {
+        if ( layerName == null ) {
+            return -1;
+        }
+
+        validateLayerNameIndex();
+        return layerNameSlots[ findLayerNameSlot( layerName ) ] - 1;
+    }
+
+    public String getLayerName( final int layerIndex ) {
+        return layerNames[ layerIndex ];
+    }
+
+    public int getLockedLayerCount() {
+        return getBitCount( lockedLayerBits );
+    }
+
+    // Get a Layer Name that is unique in the table, from the candidate and
+    // the uniquefier number to start from, ignoring the Layer at the supplied
+    // index (if any) so that a Layer can keep its own Layer Name.
+    // NOTE: We search from the lowest uniquefier number, in order to allow
+    // for reuse of deleted names, just as for observable Layer Collections.
+    public String getUniqueLayerName( final String layerNameCandidate,
+                                      final NumberFormat uniquefierNumberFormat,
+                                      final int uniquefierNumber,
+                                      final int excludeLayerIndex ) {
+        int number = uniquefierNumber;
+        String layerName = layerNameCandidate
+                + UniquefierAppendixCache.getUniquefierAppendix( number, uniquefierNumberFormat );
+        while ( !isLayerNameUnique( layerName, excludeLayerIndex ) ) {
+            number++;
+            layerName = layerNameCandidate
+                    + UniquefierAppendixCache.getUniquefierAppendix( number,
+                                                                     uniquefierNumberFormat );
+        }
+
+        return layerName;
+    }
+
+    public int getVisibleLayerCount() {
+        return getBitCount( visibleLayerBits );
+    }
+
+    public boolean hasLayer( final String layerName ) {
+        return getLayerIndex( layerName ) >= 0;
+    }
+
+    // Insert a Layer at the supplied index, without enforcing any policy
+    // other than that only one Layer is Active.
+    void insertLayerRow( final int layerIndex,
+                         final String layerName,
+                         final int layerColorArgb,
+                         final int layerFlags ) {
+        ensureLayerCapacity( layerCount + 1 );
+
+        final int numberOfLayersAfter = layerCount - layerIndex;
+        System.arraycopy( layerNames, layerIndex, layerNames, layerIndex + 1, numberOfLayersAfter );
+        System.arraycopy( layerColorArgbs,
+                          layerIndex,
+                          layerColorArgbs,
+                          layerIndex + 1,
+                          numberOfLayersAfter );
+        insertBit( visibleLayerBits, layerIndex, layerCount );
+        insertBit( lockedLayerBits, layerIndex, layerCount );
+        layerCount++;
+
+        layerNames[ layerIndex ] = LayerNamePool.intern( layerName );
+        layerColorArgbs[ layerIndex ] = layerColorArgb;
+        if ( activeLayerIndex >= layerIndex ) {
+            activeLayerIndex++;
+        }
+        setLayerFlags( layerIndex, layerFlags );
+
+        // As every later Layer has moved, the hash index must be rebuilt,
+        // unless the Layer was added at the end.
+        if ( numberOfLayersAfter > 0 ) {
+            layerNameIndexStale = true;
+        }
+        else if ( !layerNameIndexStale ) {
+            indexLayerName( layerIndex );
+        }
+    }
+
+    public boolean isLayerActive( final int layerIndex ) {
+        return layerIndex == activeLayerIndex;
+    }
+
+    public boolean isLayerIndexValid( final int layerIndex ) {
+        return ( layerIndex >= 0 ) && ( layerIndex < layerCount );
+    }
+
+    public boolean isLayerLocked( final int layerIndex ) {
+        return getBit( lockedLayerBits, layerIndex );
+    }
+
+    public boolean isLayerNameUnique( final String layerNameCandidate,
+                                      final int excludeLayerIndex ) {
+        final int layerIndex = getLayerIndex( layerNameCandidate );
+        if ( ( layerIndex < 0 ) || ( layerIndex == excludeLayerIndex ) ) {
+            // NOTE: When Layer Names are shared, the excluded Layer might only
+            // be the first of several Layers with the candidate Layer Name.
+            return ( layerIndex < 0 ) || !layerNamesShared
+                    || !isLayerNameShared( layerIndex );
+        }
+
+        return false;
+    }
+
+    public boolean isLayerVisible( final int layerIndex ) {
+        return getBit( visibleLayerBits, layerIndex );
+    }
+
+    // Put the Layers in the supplied order, which lists the current index of
+    // the Layer that goes at each index, without enforcing any policy.
+    void reorderLayerRows( final int[] layerOrder ) {
+        final String[] oldLayerNames = Arrays.copyOf( layerNames, layerCount );
+        final int[] oldLayerColorArgbs = Arrays.copyOf( layerColorArgbs, layerCount );
+        final long[] oldVisibleLayerBits = visibleLayerBits.clone();
+        final long[] oldLockedLayerBits = lockedLayerBits.clone();
+        final int oldActiveLayerIndex = activeLayerIndex;
+
+        activeLayerIndex = -1;
+        for ( int layerIndex = 0; layerIndex < layerCount; layerIndex++ ) {
+            final int oldLayerIndex = layerOrder[ layerIndex ];
+            layerNames[ layerIndex ] = oldLayerNames[ oldLayerIndex ];
+            layerColorArgbs[ layerIndex ] = oldLayerColorArgbs[ oldLayerIndex ];
+            setBit( visibleLayerBits, layerIndex, getBit( oldVisibleLayerBits, oldLayerIndex ) );
+            setBit( lockedLayerBits, layerIndex, getBit( oldLockedLayerBits, oldLayerIndex ) );
+            if ( oldLayerIndex == oldActiveLayerIndex ) {
+                activeLayerIndex = layerIndex;
+            }
+        }
+
+        layerNameIndexStale = true;
+    }
+
+    // Remove the Layer at the supplied index, returning whether it was
+    // removed. The Default Layer can't be removed, and if the Active Layer is
+    // removed then the Default Layer is made Active instead.
+    public boolean removeLayer( final int layerIndex ) {
+        if ( ( layerIndex == LayerUtilities.DEFAULT_LAYER_INDEX )
+                || !isLayerIndexValid( layerIndex ) ) {
+            return false;
+        }
+
+        final boolean layerActive = isLayerActive( layerIndex );
+        removeLayerRow( layerIndex );
+        if ( layerActive ) {
+            activeLayerIndex = LayerUtilities.DEFAULT_LAYER_INDEX;
+        }
+
+        return true;
+    }
+
+    // Remove the Layer at the supplied index, without enforcing any policy.
+    void removeLayerRow( final int layerIndex ) {
+        removeLayerRows( layerIndex, layerIndex + 1 );
+    }
+
+    // Remove the Layers in the supplied range of indices in one go, without
+    // enforcing any policy.
+    void removeLayerRows( final int fromLayerIndex, final int toLayerIndex ) {
+        // Layers removed from the end can simply be dropped from the hash
+        // index, but otherwise every later Layer moves, so the hash index is
+        // rebuilt once when next needed, after the removed Layers are gone.
+        // NOTE: When Layer Names are shared, another Layer might have to take
+        // over the hash index slot of a removed Layer, which also needs a
+        // rebuild, and that must not see the removed Layers either.
+        final int numberOfLayersRemoved = toLayerIndex - fromLayerIndex;
+        final int numberOfLayersAfter = layerCount - toLayerIndex;
+        final boolean unindexRemovedLayers = ( numberOfLayersAfter == 0 )
+                && !layerNameIndexStale && !layerNamesShared;
+        if ( unindexRemovedLayers ) {
+            for ( int layerIndex = fromLayerIndex; layerIndex < toLayerIndex; layerIndex++ ) {
+                unindexLayerName( layerIndex );
+            }
+        }
+
+        System.arraycopy( layerNames, toLayerIndex, layerNames, fromLayerIndex, numberOfLayersAfter );
+        System.arraycopy( layerColorArgbs,
+                          toLayerIndex,
+                          layerColorArgbs,
+                          fromLayerIndex,
+                          numberOfLayersAfter );
+        removeBits( visibleLayerBits, fromLayerIndex, toLayerIndex, layerCount );
+        removeBits( lockedLayerBits, fromLayerIndex, toLayerIndex, layerCount );
+        layerCount -= numberOfLayersRemoved;
+        Arrays.fill( layerNames, layerCount, layerCount + numberOfLayersRemoved, null );
+        if ( !unindexRemovedLayers ) {
+            layerNameIndexStale = true;
+        }
+
+        if ( ( activeLayerIndex >= fromLayerIndex ) && ( activeLayerIndex < toLayerIndex ) ) {
+            activeLayerIndex = -1;
+        }
+        else if ( activeLayerIndex >= toLayerIndex ) {
+            activeLayerIndex -= numberOfLayersRemoved;
+        }
+    }
+
+    // Make the Layer at the supplied index the Active Layer, unless it is
+    // Hidden, and return the index of the Active Layer either way.
+    public int setActiveLayer( final int layerIndex ) {
+        if ( isLayerIndexValid( layerIndex ) && isLayerVisible( layerIndex ) ) {
+            activeLayerIndex = layerIndex;
+        }
+
+        return activeLayerIndex;
+    }
+
+    public void setLayerColorArgb( final int layerIndex, final int layerColorArgb ) {
+        layerColorArgbs[ layerIndex ] = layerColorArgb;
+    }
+
+    // Set the Active, Visible and Locked Status of the Layer at the supplied
+    // index, without enforcing any policy other than that only one Layer is
+    // Active.
+    void setLayerFlags( final int layerIndex, final int layerFlags ) {
+        setBit( visibleLayerBits,
+                layerIndex,
+                ( layerFlags & LayerProperties.LAYER_VISIBLE_FLAG ) != 0 );
+        setBit( lockedLayerBits,
+                layerIndex,
+                ( layerFlags & LayerProperties.LAYER_LOCKED_FLAG ) != 0 );
+
+        if ( ( layerFlags & LayerProperties.LAYER_ACTIVE_FLAG ) != 0 ) {
+            activeLayerIndex = layerIndex;
+        }
+        else if ( activeLayerIndex == layerIndex ) {
+            activeLayerIndex = -1;
+        }
+    }
+
+    public void setLayerLocked( final int layerIndex, final boolean layerLocked ) {
+        setBit( lockedLayerBits, layerIndex, layerLocked );
+    }
+
+    // Rename the Layer at the supplied index, enforcing name-uniqueness just
+    // as LayerUtilities.uniquefyLayerName() does, and return the Layer Name
+    // that was actually used.
+    // NOTE: Make sure we aren't trying to change the Default Layer Name.
+    public String setLayerName( final int layerIndex,
+                                final String layerNameCandidate,
+                                final NumberFormat uniquefierNumberFormat ) {
+        final String newLayerName = ( LayerUtilities.DEFAULT_LAYER_INDEX == layerIndex )
+            ? LayerUtilities.DEFAULT_LAYER_NAME
+            : getUniqueLayerName( layerNameCandidate, uniquefierNumberFormat, 0, layerIndex );
+        setLayerNameRow( layerIndex, newLayerName );
+
+        return layerNames[ layerIndex ];
+    }
+
+    // Rename the Layer at the supplied index, without enforcing uniqueness.
+    // NOTE: A Layer Name that is already held by another Layer is tracked as
+    // shared by the hash index, so both Layers can still be found.
+    // NOTE: The rename is all or nothing: if the hash index can't be updated,
+    // the old Layer Name is put back, and the hash index is rebuilt from the
+    // Layer Names when next needed.
+    void setLayerNameRow( final int layerIndex, final String layerName ) {
+        final String oldLayerName = layerNames[ layerIndex ];
+        if ( ( layerName != null ) && layerName.equals( oldLayerName ) ) {
+            return;
+        }
+
+        try {
+            validateLayerNameIndex();
+            unindexLayerName( layerIndex );
+            layerNames[ layerIndex ] = LayerNamePool.intern( layerName );
+            indexLayerName( layerIndex );
+        }
+        catch ( final RuntimeException e ) {
+            layerNames[ layerIndex ] = oldLayerName;
+            layerNameIndexStale = true;
+            throw e;
+        }
+    }
+
+    // Set the Visible Status of the Layer at the supplied index, enforcing
+    // the Hidden Layer Policy, which is to make the Default Layer Active if
+    // the Active Layer is Hidden, unless it is the Default Layer already.
+    public void setLayerVisible( final int layerIndex, final boolean layerVisible ) {
+        setBit( visibleLayerBits, layerIndex, layerVisible );
+
+        if ( !layerVisible && ( layerIndex == activeLayerIndex )
+                && ( layerIndex != LayerUtilities.DEFAULT_LAYER_INDEX ) ) {
+            activeLayerIndex = LayerUtilities.DEFAULT_LAYER_INDEX;
+        }
+    }
+
+    private int addLayerRow( final String layerName,
+                             final int layerColorArgb,
+                             final boolean layerVisible,
+                             final boolean layerLocked ) {
+        ensureLayerCapacity( layerCount + 1 );
+
+        final int layerIndex = layerCount++;
+        layerNames[ layerIndex ] = LayerNamePool.intern( layerName );
+        layerColorArgbs[ layerIndex ] = layerColorArgb;
+        setBit( visibleLayerBits, layerIndex, layerVisible );
+        setBit( lockedLayerBits, layerIndex, layerLocked );
+        if ( !layerNameIndexStale ) {
+            indexLayerName( layerIndex );
+        }
+
+        return layerIndex;
+    }
+
+    private void ensureLayerCapacity( final int layerCapacity ) {
+        if ( layerCapacity <= layerNames.length ) {
+            return;
+        }
+
+        final int capacity = Math.max( layerCapacity, 2 * layerNames.length );
+        layerNames = Arrays.copyOf( layerNames, capacity );
+        layerColorArgbs = Arrays.copyOf( layerColorArgbs, capacity );
+        visibleLayerBits = Arrays.copyOf( visibleLayerBits, getBitWordCount( capacity ) );
+        lockedLayerBits = Arrays.copyOf( lockedLayerBits, getBitWordCount( capacity ) );
+
+        if ( getLayerNameSlotCount( capacity ) > layerNameSlots.length ) {
+            layerNameSlots = new int[ getLayerNameSlotCount( capacity ) ];
+            rebuildLayerNameIndex();
+        }
+    }
+
+    // Find the hash index slot that holds the supplied Layer Name, or else the
+    // empty slot where it would go.
+    private int findLayerNameSlot( final String layerName ) {
+        final int slotMask = layerNameSlots.length - 1;
+        int slot = getLayerNameHash( layerName ) & slotMask;
+        while ( ( layerNameSlots[ slot ] != 0 )
+                && !layerName.equals( layerNames[ layerNameSlots[ slot ] - 1 ] ) ) {
+            slot = ( slot + 1 ) & slotMask;
+        }
+
+        return slot;
+    }
+
+    private void indexLayerName( final int layerIndex ) {
+        final String layerName = layerNames[ layerIndex ];
+        if ( layerName == null ) {
+            return;
+        }
+
+        // NOTE: When the Layer Name is shared, the hash index holds the first
+        // Layer with that Layer Name, which matches a linear search by name.
+        final int slot = findLayerNameSlot( layerName );
+        if ( layerNameSlots[ slot ] == 0 ) {
+            layerNameSlots[ slot ] = layerIndex + 1;
+        }
+        else if ( layerNameSlots[ slot ] != ( layerIndex + 1 ) ) {
+            layerNamesShared = true;
+            layerNameSlots[ slot ] = Math.min( layerNameSlots[ slot ], layerIndex + 1 );
+        }
+    }
+
+    private boolean isLayerNameShared( final int layerIndex ) {
+        final String layerName = layerNames[ layerIndex ];
+        for ( int otherLayerIndex = 0; otherLayerIndex < layerCount; otherLayerIndex++ ) {
+            if ( ( otherLayerIndex != layerIndex )
+                    && layerName.equals( layerNames[ otherLayerIndex ] ) ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void rebuildLayerNameIndex() {
+        Arrays.fill( layerNameSlots, 0 );
+        layerNamesShared = false;
+        layerNameIndexStale = false;
+        for ( int layerIndex = 0; layerIndex < layerCount; layerIndex++ ) {
+            indexLayerName( layerIndex );
+        }
+    }
+
+    // Remove the Layer Name at the supplied index from the hash index,
+    // shifting back any later Layer Names in the same probe sequence so that
+    // they can still be found.
+    private void unindexLayerName( final int layerIndex ) {
+        final String layerName = layerNames[ layerIndex ];
+        if ( layerName == null ) {
+            return;
+        }
+
+        // NOTE: Another Layer with the same Layer Name may have to take over
+        // its hash index slot, which is simplest to do by rebuilding.
+        if ( layerNamesShared ) {
+            layerNames[ layerIndex ] = null;
+            rebuildLayerNameIndex();
+            layerNames[ layerIndex ] = layerName;
+            return;
+        }
+
+        final int slotMask = layerNameSlots.length - 1;
+        int emptySlot = findLayerNameSlot( layerName );
+        if ( layerNameSlots[ emptySlot ] == 0 ) {
+            return;
+        }
+        layerNameSlots[ emptySlot ] = 0;
+
+        int slot = ( emptySlot + 1 ) & slotMask;
+        while ( layerNameSlots[ slot ] != 0 ) {
+            final int homeSlot = getLayerNameHash( layerNames[ layerNameSlots[ slot ] - 1 ] )
+                    & slotMask;
+
+            // Move the entry back if its home slot isn't cyclically between
+            // the empty slot and its current slot.
+            final boolean homeSlotBetween = ( emptySlot <= slot )
+                ? ( emptySlot < homeSlot ) && ( homeSlot <= slot )
+                : ( emptySlot < homeSlot ) || ( homeSlot <= slot );
+            if ( !homeSlotBetween ) {
+                layerNameSlots[ emptySlot ] = layerNameSlots[ slot ];
+                layerNameSlots[ slot ] = 0;
+                emptySlot = slot;
+            }
+
+            slot = ( slot + 1 ) & slotMask;
+        }
+    }
+
+    private void validateLayerNameIndex() {
+        if ( layerNameIndexStale ) {
+            rebuildLayerNameIndex();
+        }
+    }
+
+    private static boolean getBit( final long[] bits, final int bitIndex ) {
+        return ( bits[ bitIndex >>> 6 ] & ( 1L << bitIndex ) ) != 0L;
+    }
+
+    private static int getBitCount( final long[] bits ) {
+        int bitCount = 0;
+        for ( final long bitWord : bits ) {
+            bitCount += Long.bitCount( bitWord );
+        }
+
+        return bitCount;
+    }
+
+    private static int getBitWordCount( final int bitCount ) {
+        return ( bitCount + 63 ) >>> 6;
+    }
+
+    // Spread the Layer Name's hash code, so that similar Layer Names (such as
+    // "Layer 1", "Layer 2" and so on) don't bunch up in the hash index.
+    private static int getLayerNameHash( final String layerName ) {
+        final int hash = layerName.hashCode() * 0x9e3779b9;
+        return hash ^ ( hash >>> 16 );
+    }
+
+    // Keep the hash index at most half full, at a power of two size.
+    private static int getLayerNameSlotCount( final int layerCapacity ) {
+        return Integer.highestOneBit( Math.max( layerCapacity, 2 ) - 1 ) << 2;
+    }
+
+    // Insert a clear bit at the supplied index, shifting all of the later bits
+    // up by one.
+    private static void insertBit( final long[] bits, final int bitIndex, final int bitCount ) {
+        final int bitWordIndex = bitIndex >>> 6;
+        for ( int wordIndex = bitCount >>> 6; wordIndex > bitWordIndex; wordIndex-- ) {
+            bits[ wordIndex ] = ( bits[ wordIndex ] << 1 ) | ( bits[ wordIndex - 1 ] >>> 63 );
+        }
+
+        final long bitWord = bits[ bitWordIndex ];
+        final long lowerBitMask = ( 1L << bitIndex ) - 1L;
+        bits[ bitWordIndex ] = ( bitWord & lowerBitMask ) | ( ( bitWord & ~lowerBitMask ) << 1 );
+    }
+
+    // Remove the bits in the supplied range of indices, shifting all of the
+    // later bits down to fill the gap.
+    private static void removeBits( final long[] bits,
+                                    final int fromBitIndex,
+                                    final int toBitIndex,
+                                    final int bitCount ) {
+        final int numberOfBitsRemoved = toBitIndex - fromBitIndex;
+        final int newBitCount = bitCount - numberOfBitsRemoved;
+        for ( int bitIndex = fromBitIndex; bitIndex < newBitCount; bitIndex++ ) {
+            setBit( bits, bitIndex, getBit( bits, bitIndex + numberOfBitsRemoved ) );
+        }
+        for ( int bitIndex = newBitCount; bitIndex < bitCount; bitIndex++ ) {
+            setBit( bits, bitIndex, false );
+        }
+    }
+
+    private static void setBit( final long[] bits, final int bitIndex, final boolean bitSet ) {
+        if ( bitSet ) {
+            bits[ bitIndex >>> 6 ] |= 1L << bitIndex;
+        }
+        else {
+            bits[ bitIndex >>> 6 ] &= ~( 1L << bitIndex );
+        }
+    }
+
+}
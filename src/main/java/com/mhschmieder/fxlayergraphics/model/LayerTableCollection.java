@@ -0,0 +1,589 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+
+// A Layer Collection that keeps its Layers in a compact Layer Table, and only
+// makes Layers for the rows that are actually asked for, such as the visible
+// rows of a virtualized table view. These row views are ordinary Layers, whose
+// edits are written through to the Layer Table and reported to list change
+// listeners as updates, just as for the extractor-based Layer Collection.
+// NOTE: Row views are only held weakly, so they are released once nothing
+// else refers to them (such as when they scroll out of view), and a new one is
+// made if the row is asked for again. While a row view is alive, it is the
+// same Layer for every request, so bindings and listeners on it keep working.
+// NOTE: Each Layer can only be in the collection once, as each row view
+// belongs to a single row, so adding a Layer that is already in the collection
+// (or setting it at another row) is refused.
+public final class LayerTableCollection extends AbstractLayerCollection {
+
+    // Declare the initial number of rows to make room for.
+    private static final int                        MINIMUM_ROW_CAPACITY = 16;
+
+    // A weak reference to the row view of one row, which also listens to the
+    // row view for edits to write through to the Layer Table.
+    // NOTE: The row view holds on to this listener, rather than the other way
+    // around, so the listener doesn't keep the row view alive.
+    private final class LayerRowView extends WeakReference< LayerProperties >
+            implements InvalidationListener {
+
+        // The row that the row view is for, which moves as rows are added
+        // or removed ahead of it.
+        private int          layerIndex;
+
+        // The identity hash code of the row view, which is kept as the row
+        // view may already have been released by the time it is needed.
+        private final int    layerIdentity;
+
+        // The next row view with the same identity hash code, if any.
+        private LayerRowView nextLayerRowView;
+
+        private LayerRowView( final LayerProperties layer, final int pLayerIndex ) {
+            super( layer, releasedLayerRowViews );
+            layerIndex = pLayerIndex;
+            layerIdentity = System.identityHashCode( layer );
+            nextLayerRowView = null;
+        }
+
+        @Override
+        public void invalidated( final Observable observable ) {
+            layerRowViewChanged( this, observable );
+        }
+
+    }
+
+    // The compact store of the Layers in the collection.
+    private final LayerTable                        layerTable;
+
+    // The row views that have been made, by row, which are either null or
+    // only weakly hold their row views.
+    private LayerRowView[]                          layerRowViews;
+
+    // The row views that have been made, chained by their identity hash codes,
+    // so that a Layer can be found without searching every row.
+    // NOTE: The row views can't be the keys, as that would keep them alive.
+    private final Map< Integer, LayerRowView >      layerRowViewsByIdentity;
+
+    // The row views that have been released since they were last cleared out.
+    private final ReferenceQueue< LayerProperties > releasedLayerRowViews;
+
+    // Whether an edit is being pushed to a row view, which therefore doesn't
+    // need writing back through to the Layer Table.
+    private boolean                                 pushingLayerEdits;
+
+    // Make a collection that initially only contains the Default Layer.
+    public LayerTableCollection() {
+        this( new LayerTable() );
+    }
+
+    // Make a collection over the supplied Layer Table, which from then on
+    // should only be edited through the collection.
+    public LayerTableCollection( final LayerTable pLayerTable ) {
+        layerTable = Objects.requireNonNull( pLayerTable, "layerTable" ); //$NON-NLS-1$
+        layerRowViews = new LayerRowView[ Math.max( layerTable.getLayerCount(),
+                                                    MINIMUM_ROW_CAPACITY ) ];
+        layerRowViewsByIdentity = new HashMap<>();
+        releasedLayerRowViews = new ReferenceQueue<>();
+        pushingLayerEdits = false;
+    }
+
+    // NOTE: Adding an Active Layer can make another row Inactive, which is
+    // reported along with the addition, so the change is opened here rather
+    // than after the row has been added.
+    @Override
+    public void add( final int index, final LayerProperties layer ) {
+        beginChange();
+        try {
+            super.add( index, layer );
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public boolean contains( final Object object ) {
+        return indexOf( object ) >= 0;
+    }
+
+    @Override
+    protected void doAdd( final int index, final LayerProperties layer ) {
+        Objects.requireNonNull( layer, "layer" ); //$NON-NLS-1$
+        if ( indexOf( layer ) >= 0 ) {
+            throw new IllegalArgumentException( "Layer is already in the collection" ); //$NON-NLS-1$
+        }
+        clearReleasedLayerRowViews();
+
+        // Only one Layer can be Active in the Layer Table, so adding an Active
+        // Layer makes the previous Active Layer Inactive, which is done first
+        // so that it is reported against the rows as they were.
+        final int oldActiveLayerIndex = layerTable.getActiveLayerIndex();
+        if ( layer.isLayerActive() && ( oldActiveLayerIndex >= 0 ) ) {
+            layerTable.setLayerFlags( oldActiveLayerIndex,
+                                      layerTable.getLayerFlags( oldActiveLayerIndex )
+                                              & ~LayerProperties.LAYER_ACTIVE_FLAG );
+            pushLayerInactive( oldActiveLayerIndex );
+        }
+
+        layerTable.insertLayerRow( index,
+                                   layer.getLayerName(),
+                                   layer.getLayerColorArgb(),
+                                   layer.getLayerFlags() );
+
+        if ( layerRowViews.length < layerTable.getLayerCount() ) {
+            layerRowViews = Arrays.copyOf( layerRowViews, 2 * layerRowViews.length );
+        }
+        final int numberOfLayers = layerTable.getLayerCount();
+        System.arraycopy( layerRowViews,
+                          index,
+                          layerRowViews,
+                          index + 1,
+                          numberOfLayers - index - 1 );
+        for ( int layerIndex = index + 1; layerIndex < numberOfLayers; layerIndex++ ) {
+            if ( layerRowViews[ layerIndex ] != null ) {
+                layerRowViews[ layerIndex ].layerIndex = layerIndex;
+            }
+        }
+        attachLayer( index, layer );
+    }
+
+    @Override
+    protected LayerProperties doRemove( final int index ) {
+        clearReleasedLayerRowViews();
+        final LayerProperties layer = getLayerForRemoval( index );
+        detachLayer( index, layer );
+        layerTable.removeLayerRow( index );
+        removeLayerRowViews( index, index + 1 );
+
+        return layer;
+    }
+
+    @Override
+    protected LayerProperties doSet( final int index, final LayerProperties layer ) {
+        Objects.requireNonNull( layer, "layer" ); //$NON-NLS-1$
+        final int layerIndex = indexOf( layer );
+        if ( ( layerIndex >= 0 ) && ( layerIndex != index ) ) {
+            throw new IllegalArgumentException( "Layer is already in the collection" ); //$NON-NLS-1$
+        }
+        clearReleasedLayerRowViews();
+        final LayerProperties oldLayer = getLayerForRemoval( index );
+        detachLayer( index, oldLayer );
+
+        final int oldActiveLayerIndex = layerTable.getActiveLayerIndex();
+        layerTable.setLayerNameRow( index, layer.getLayerName() );
+        layerTable.setLayerColorArgb( index, layer.getLayerColorArgb() );
+        layerTable.setLayerFlags( index, layer.getLayerFlags() );
+        attachLayer( index, layer );
+
+        if ( layer.isLayerActive() && ( oldActiveLayerIndex >= 0 )
+                && ( oldActiveLayerIndex != index ) ) {
+            pushLayerInactive( oldActiveLayerIndex );
+        }
+
+        return oldLayer;
+    }
+
+    // Get the row view of the supplied row, making it if there isn't one.
+    @Override
+    public LayerProperties get( final int index ) {
+        if ( !layerTable.isLayerIndexValid( index ) ) {
+            throw new IndexOutOfBoundsException( "Index: " + index + ", Size: " //$NON-NLS-1$ //$NON-NLS-2$
+                    + layerTable.getLayerCount() );
+        }
+
+        clearReleasedLayerRowViews();
+        final LayerProperties liveLayer = getLiveLayer( index );
+        if ( liveLayer != null ) {
+            return liveLayer;
+        }
+
+        final LayerProperties layer = makeLayerSnapshot( index );
+        attachLayer( index, layer );
+
+        return layer;
+    }
+
+    // Get the Layer to report as removed from the supplied row, which is its
+    // row view if it has one that is alive, and otherwise a plain snapshot of
+    // the row, as making a row view for it would be wasted work.
+    @Override
+    LayerProperties getLayerForRemoval( final int index ) {
+        final LayerProperties liveLayer = getLiveLayer( index );
+        return ( liveLayer != null ) ? liveLayer : makeLayerSnapshot( index );
+    }
+
+    public LayerTable getLayerTable() {
+        return layerTable;
+    }
+
+    // NOTE: Only the row views that are alive need to be looked at, as no
+    // other Layer can be in the collection.
+    @Override
+    public int indexOf( final Object object ) {
+        if ( object instanceof LayerProperties ) {
+            for ( LayerRowView layerRowView = layerRowViewsByIdentity
+                    .get( System.identityHashCode( object ) ); layerRowView != null; layerRowView = layerRowView.nextLayerRowView ) {
+                if ( layerRowView.get() == object ) {
+                    return layerRowView.layerIndex;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    // NOTE: Each Layer can only be in the collection once, so its first row is
+    // also its last row.
+    @Override
+    public int lastIndexOf( final Object object ) {
+        return indexOf( object );
+    }
+
+    // Remove a range of rows from the Layer Table in one go, rather than row by
+    // row, so that the later rows only move once. This is also how the
+    // collection is cleared.
+    @Override
+    protected void removeRange( final int fromIndex, final int toIndex ) {
+        if ( ( fromIndex < 0 ) || ( toIndex > layerTable.getLayerCount() )
+                || ( fromIndex > toIndex ) ) {
+            throw new IndexOutOfBoundsException( "From Index: " + fromIndex //$NON-NLS-1$
+                    + ", To Index: " + toIndex + ", Size: " //$NON-NLS-1$ //$NON-NLS-2$
+                    + layerTable.getLayerCount() );
+        }
+        if ( fromIndex == toIndex ) {
+            return;
+        }
+
+        // NOTE: During a transaction, the removed rows are reported as part of
+        // the single change made when the transaction is closed.
+        clearReleasedLayerRowViews();
+        final LayerTransactionLog transactionLog = getTransactionLog();
+        if ( transactionLog != null ) {
+            transactionLog.coverRows( fromIndex, toIndex );
+        }
+        final List< LayerProperties > removedLayers = new ArrayList<>( toIndex - fromIndex );
+        for ( int layerIndex = fromIndex; layerIndex < toIndex; layerIndex++ ) {
+            final LayerProperties layer = getLayerForRemoval( layerIndex );
+            detachLayer( layerIndex, layer );
+            removedLayers.add( layer );
+        }
+        layerTable.removeLayerRows( fromIndex, toIndex );
+        removeLayerRowViews( fromIndex, toIndex );
+
+        if ( transactionLog != null ) {
+            transactionLog.rowsRemoved( toIndex - fromIndex );
+            ++modCount;
+            return;
+        }
+
+        beginChange();
+        try {
+            nextRemove( fromIndex, removedLayers );
+            ++modCount;
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    // NOTE: Setting an Active Layer can make another row Inactive, which is
+    // reported along with the replacement, so the change is opened here rather
+    // than after the row has been replaced.
+    @Override
+    public LayerProperties set( final int index, final LayerProperties layer ) {
+        beginChange();
+        try {
+            return super.set( index, layer );
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    @Override
+    public int size() {
+        return layerTable.getLayerCount();
+    }
+
+    // Sort the Layers as a single permutation, rather than by setting each
+    // row in turn, which would briefly put the same Layer in two rows.
+    // NOTE: Sorting has to look at every Layer, so row views are made for
+    // every row, but they are only held on to while sorting.
+    @Override
+    public void sort( final Comparator< ? super LayerProperties > comparator ) {
+        final int numberOfLayers = layerTable.getLayerCount();
+        if ( numberOfLayers < 2 ) {
+            return;
+        }
+
+        final LayerProperties[] layers = new LayerProperties[ numberOfLayers ];
+        final Integer[] sortedLayerIndices = new Integer[ numberOfLayers ];
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            layers[ layerIndex ] = get( layerIndex );
+            sortedLayerIndices[ layerIndex ] = Integer.valueOf( layerIndex );
+        }
+
+        final Comparator< ? super LayerProperties > layerComparator = ( comparator != null )
+            ? comparator
+            : Comparator.naturalOrder();
+        Arrays.sort( sortedLayerIndices,
+                     ( layerIndex1, layerIndex2 ) -> layerComparator
+                             .compare( layers[ layerIndex1.intValue() ],
+                                       layers[ layerIndex2.intValue() ] ) );
+
+        // NOTE: During a transaction, the sort is reported as part of the
+        // replacement of every row when the transaction is closed.
+        final LayerTransactionLog transactionLog = getTransactionLog();
+        if ( transactionLog != null ) {
+            transactionLog.coverRows( 0, numberOfLayers );
+        }
+
+        final int[] layerOrder = new int[ numberOfLayers ];
+        final int[] permutation = new int[ numberOfLayers ];
+        final LayerRowView[] oldLayerRowViews = layerRowViews.clone();
+        for ( int layerIndex = 0; layerIndex < numberOfLayers; layerIndex++ ) {
+            final int oldLayerIndex = sortedLayerIndices[ layerIndex ].intValue();
+            layerOrder[ layerIndex ] = oldLayerIndex;
+            permutation[ oldLayerIndex ] = layerIndex;
+            layerRowViews[ layerIndex ] = oldLayerRowViews[ oldLayerIndex ];
+            if ( layerRowViews[ layerIndex ] != null ) {
+                layerRowViews[ layerIndex ].layerIndex = layerIndex;
+            }
+        }
+        layerTable.reorderLayerRows( layerOrder );
+
+        if ( transactionLog != null ) {
+            ++modCount;
+            return;
+        }
+
+        beginChange();
+        try {
+            nextPermutation( 0, numberOfLayers, permutation );
+            ++modCount;
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    private void attachLayer( final int layerIndex, final LayerProperties layer ) {
+        final LayerRowView layerRowView = new LayerRowView( layer, layerIndex );
+        layerRowViews[ layerIndex ] = layerRowView;
+        layerRowView.nextLayerRowView = layerRowViewsByIdentity
+                .put( layerRowView.layerIdentity, layerRowView );
+
+        // NOTE: The Active, Visible and Locked Status are all watched through
+        // the single Layer Flags property.
+        layer.layerNameProperty().addListener( layerRowView );
+        layer.layerColorProperty().addListener( layerRowView );
+        layer.layerFlagsProperty().addListener( layerRowView );
+    }
+
+    // Clear out the rows whose row views have been released, so that their
+    // references can be released as well.
+    private void clearReleasedLayerRowViews() {
+        LayerRowView layerRowView;
+        while ( ( layerRowView = ( LayerRowView ) releasedLayerRowViews.poll() ) != null ) {
+            final int layerIndex = layerRowView.layerIndex;
+            if ( ( layerIndex < layerRowViews.length )
+                    && ( layerRowViews[ layerIndex ] == layerRowView ) ) {
+                layerRowViews[ layerIndex ] = null;
+            }
+            unregisterLayerRowView( layerRowView );
+        }
+    }
+
+    private void detachLayer( final int layerIndex, final LayerProperties layer ) {
+        final LayerRowView layerRowView = layerRowViews[ layerIndex ];
+        layerRowViews[ layerIndex ] = null;
+        if ( layerRowView == null ) {
+            return;
+        }
+
+        layer.layerNameProperty().removeListener( layerRowView );
+        layer.layerColorProperty().removeListener( layerRowView );
+        layer.layerFlagsProperty().removeListener( layerRowView );
+        layerRowView.clear();
+        unregisterLayerRowView( layerRowView );
+    }
+
+    private LayerProperties getLiveLayer( final int layerIndex ) {
+        final LayerRowView layerRowView = layerRowViews[ layerIndex ];
+        return ( layerRowView != null ) ? layerRowView.get() : null;
+    }
+
+    // Write an edit to a row view through to the Layer Table, and report the
+    // row as updated.
+    // NOTE: If the edit can't be written through, the row view is put back to
+    // match the Layer Table before the failure is passed on, as the property
+    // that was edited would otherwise just log it and carry on regardless.
+    private void layerRowViewChanged( final LayerRowView layerRowView,
+                                      final Observable observable ) {
+        final LayerProperties layer = layerRowView.get();
+        if ( pushingLayerEdits || ( layer == null ) ) {
+            return;
+        }
+
+        final int layerIndex = layerRowView.layerIndex;
+        beginChange();
+        try {
+            if ( observable == layer.layerNameProperty() ) {
+                layerTable.setLayerNameRow( layerIndex, layer.getLayerName() );
+            }
+            else if ( observable == layer.layerColorProperty() ) {
+                layerTable.setLayerColorArgb( layerIndex, layer.getLayerColorArgb() );
+            }
+            else {
+                // Only one Layer can be Active in the Layer Table, so making
+                // this Layer Active makes the previous Active Layer Inactive.
+                final int oldActiveLayerIndex = layerTable.getActiveLayerIndex();
+                layerTable.setLayerFlags( layerIndex, layer.getLayerFlags() );
+                if ( layer.isLayerActive() && ( oldActiveLayerIndex >= 0 )
+                        && ( oldActiveLayerIndex != layerIndex ) ) {
+                    pushLayerInactive( oldActiveLayerIndex );
+                }
+            }
+        }
+        catch ( final RuntimeException e ) {
+            pushLayerRow( layer, layerIndex );
+            throw e;
+        }
+        finally {
+            nextLayerUpdate( layerIndex );
+            endChange();
+        }
+    }
+
+    // Make a plain Layer with the current values of the supplied row, which
+    // isn't watched for edits.
+    private LayerProperties makeLayerSnapshot( final int layerIndex ) {
+        return new LayerProperties( layerTable.getLayerName( layerIndex ),
+                                    layerTable.getLayerColor( layerIndex ),
+                                    layerTable.isLayerActive( layerIndex ),
+                                    layerTable.isLayerVisible( layerIndex ),
+                                    layerTable.isLayerLocked( layerIndex ) );
+    }
+
+    // Push the current values of the supplied row to its row view, so that it
+    // matches the Layer Table again.
+    private void pushLayerRow( final LayerProperties layer, final int layerIndex ) {
+        pushingLayerEdits = true;
+        try {
+            if ( !layer.layerNameProperty().isBound() ) {
+                layer.setLayerName( layerTable.getLayerName( layerIndex ) );
+            }
+            if ( !layer.layerColorProperty().isBound() ) {
+                layer.setLayerColor( layerTable.getLayerColor( layerIndex ) );
+            }
+            if ( !layer.layerFlagsProperty().isBound() ) {
+                layer.setLayerFlags( layerTable.getLayerFlags( layerIndex ) );
+            }
+        }
+        finally {
+            pushingLayerEdits = false;
+        }
+    }
+
+    // Push the Inactive Status of the supplied row to its row view, if it has
+    // one that is alive, and report the row as updated.
+    private void pushLayerInactive( final int layerIndex ) {
+        final LayerProperties layer = getLiveLayer( layerIndex );
+        if ( layer != null ) {
+            pushingLayerEdits = true;
+            try {
+                layer.setLayerActive( false );
+            }
+            finally {
+                pushingLayerEdits = false;
+            }
+        }
+
+        nextLayerUpdate( layerIndex );
+    }
+
+    // Close the gap left by the supplied range of removed rows, moving the
+    // later row views down to their new rows.
+    private void removeLayerRowViews( final int fromLayerIndex, final int toLayerIndex ) {
+        final int numberOfLayers = layerTable.getLayerCount();
+        System.arraycopy( layerRowViews,
+                          toLayerIndex,
+                          layerRowViews,
+                          fromLayerIndex,
+                          numberOfLayers - fromLayerIndex );
+        Arrays.fill( layerRowViews,
+                     numberOfLayers,
+                     numberOfLayers + toLayerIndex - fromLayerIndex,
+                     null );
+        for ( int layerIndex = fromLayerIndex; layerIndex < numberOfLayers; layerIndex++ ) {
+            if ( layerRowViews[ layerIndex ] != null ) {
+                layerRowViews[ layerIndex ].layerIndex = layerIndex;
+            }
+        }
+    }
+
+    // Take the supplied row view out of the chain for its identity hash code,
+    // if it is still there.
+    private void unregisterLayerRowView( final LayerRowView layerRowView ) {
+        final Integer layerIdentity = layerRowView.layerIdentity;
+        LayerRowView previousLayerRowView = null;
+        for ( LayerRowView chainedLayerRowView = layerRowViewsByIdentity
+                .get( layerIdentity ); chainedLayerRowView != null; chainedLayerRowView = chainedLayerRowView.nextLayerRowView ) {
+            if ( chainedLayerRowView == layerRowView ) {
+                if ( previousLayerRowView != null ) {
+                    previousLayerRowView.nextLayerRowView = layerRowView.nextLayerRowView;
+                }
+                else if ( layerRowView.nextLayerRowView != null ) {
+                    layerRowViewsByIdentity.put( layerIdentity, layerRowView.nextLayerRowView );
+                }
+                else {
+                    layerRowViewsByIdentity.remove( layerIdentity );
+                }
+                layerRowView.nextLayerRowView = null;
+                return;
+            }
+            previousLayerRowView = chainedLayerRowView;
+        }
+    }
+
+}
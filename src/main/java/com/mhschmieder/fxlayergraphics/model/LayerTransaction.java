@@ -0,0 +1,78 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+// A transaction on a Layer Collection, during which all of the list edits and
+// Layer Property edits are held back from list change listeners, which then
+// get a single consolidated change when the transaction is closed. This is
+// meant for use with try-with-resources, and transactions may be nested, in
+// which case listeners only hear about the edits when the outermost one is
+// closed.
+// NOTE: There is no rollback; if a transaction is closed due to an exception,
+// the edits made so far are still reported.
+public final class LayerTransaction implements AutoCloseable {
+
+    // The Layer Collection being edited, or null if it can't hold back edits.
+    private final AbstractLayerCollection layerCollection;
+
+    // Flag for whether this transaction is still open.
+    private boolean                       open;
+
+    // Open a transaction on the supplied Layer Collection, which may be null
+    // for a collection that can't hold back edits (making this a no-op).
+    public LayerTransaction( final AbstractLayerCollection pLayerCollection ) {
+        layerCollection = pLayerCollection;
+        open = true;
+
+        if ( layerCollection != null ) {
+            layerCollection.transactionOpened();
+        }
+    }
+
+    // Close the transaction, reporting the held back edits if this is the
+    // outermost transaction. Closing more than once has no further effect.
+    @Override
+    public void close() {
+        if ( !open ) {
+            return;
+        }
+        open = false;
+
+        if ( layerCollection != null ) {
+            layerCollection.transactionClosed();
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+}
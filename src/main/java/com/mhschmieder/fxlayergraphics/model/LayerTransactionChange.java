@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+// The single change that a Layer Collection reports when a transaction is
+// closed, made of replacements and updates in ascending order of rows.
+final class LayerTransactionChange extends ListChangeListener.Change< LayerProperties > {
+
+    // Declare the empty permutation, as transactions never report one.
+    private static final int[] NO_PERMUTATION = new int[ 0 ];
+
+    // One part of the change.
+    private static final class SubChange {
+
+        private final int                     fromIndex;
+        private final int                     toIndex;
+        private final List< LayerProperties > removedLayers;
+        private final boolean                 updated;
+
+        private SubChange( final int pFromIndex,
+                           final int pToIndex,
+                           final List< LayerProperties > pRemovedLayers,
+                           final boolean pUpdated ) {
+            fromIndex = pFromIndex;
+            toIndex = pToIndex;
+            removedLayers = pRemovedLayers;
+            updated = pUpdated;
+        }
+
+    }
+
+    private final List< SubChange > subChanges;
+
+    // The index of the current part of the change, or -1 before the first.
+    private int                     subChangeIndex;
+
+    LayerTransactionChange( final ObservableList< LayerProperties > layerCollection ) {
+        super( layerCollection );
+        subChanges = new ArrayList<>();
+        subChangeIndex = -1;
+    }
+
+    // Add the replacement of the supplied Layers by the supplied range of
+    // rows, either of which may be empty.
+    void addReplacement( final int fromIndex,
+                         final int toIndex,
+                         final List< LayerProperties > removedLayers ) {
+        subChanges.add( new SubChange( fromIndex,
+                                       toIndex,
+                                       Collections.unmodifiableList( new ArrayList<>( removedLayers ) ),
+                                       false ) );
+    }
+
+    // Add the update of the supplied range of rows.
+    void addUpdate( final int fromIndex, final int toIndex ) {
+        subChanges.add( new SubChange( fromIndex,
+                                       toIndex,
+                                       Collections.< LayerProperties > emptyList(),
+                                       true ) );
+    }
+
+    @Override
+    public int getFrom() {
+        return getSubChange().fromIndex;
+    }
+
+    @Override
+    protected int[] getPermutation() {
+        getSubChange();
+        return NO_PERMUTATION;
+    }
+
+    @Override
+    public List< LayerProperties > getRemoved() {
+        return getSubChange().removedLayers;
+    }
+
+    @Override
+    public int getTo() {
+        return getSubChange().toIndex;
+    }
+
+    boolean isEmpty() {
+        return subChanges.isEmpty();
+    }
+
+    @Override
+    public boolean next() {
+        if ( subChangeIndex < subChanges.size() ) {
+            subChangeIndex++;
+        }
+
+        return subChangeIndex < subChanges.size();
+    }
+
+    @Override
+    public void reset() {
+        subChangeIndex = -1;
+    }
+
+    @Override
+    public boolean wasUpdated() {
+        return getSubChange().updated;
+    }
+
+    private SubChange getSubChange() {
+        if ( ( subChangeIndex < 0 ) || ( subChangeIndex >= subChanges.size() ) ) {
+            throw new IllegalStateException( "Invalid Change state: next() must be called before inspecting the Change." ); //$NON-NLS-1$
+        }
+
+        return subChanges.get( subChangeIndex );
+    }
+
+}
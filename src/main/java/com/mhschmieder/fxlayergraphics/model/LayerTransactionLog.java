@@ -0,0 +1,175 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+// The edits held back by a transaction on a Layer Collection, boiled down to
+// what list change listeners need to hear when the transaction is closed: a
+// single window of rows that were added, removed, replaced or moved, along with
+// the updated rows on either side of it.
+// NOTE: The window grows to cover every structural edit, taking in any rows
+// that were skipped over, so that it can always be reported as one replacement.
+// This is what lets any mix of edits be reported as one well-formed change,
+// which JavaFX's own change builder can't always manage.
+final class LayerTransactionLog {
+
+    // The Layer Collection being edited.
+    private final ObservableList< LayerProperties > layerCollection;
+
+    // Get the Layer that is at the supplied row, for reporting it as removed
+    // if the row is later replaced or removed.
+    private final IntFunction< LayerProperties >    layerSource;
+
+    // Whether there has been a structural edit yet, and hence a window.
+    private boolean                                 windowOpen;
+
+    // The start of the window, which is the same in the original rows and in
+    // the current rows, as nothing ahead of it has moved.
+    private int                                     windowStart;
+
+    // The end of the window, in the current rows.
+    private int                                     windowEnd;
+
+    // The original Layers that were in the window, in order.
+    private final List< LayerProperties >           removedLayers;
+
+    // The updated rows ahead of the window (or of every row, if there is no
+    // window yet).
+    private final BitSet                            updatedRowsBefore;
+
+    // The updated rows after the window, counting from the end of the window.
+    private BitSet                                  updatedRowsAfter;
+
+    LayerTransactionLog( final ObservableList< LayerProperties > pLayerCollection,
+                         final IntFunction< LayerProperties > pLayerSource ) {
+        layerCollection = pLayerCollection;
+        layerSource = pLayerSource;
+        windowOpen = false;
+        windowStart = 0;
+        windowEnd = 0;
+        removedLayers = new ArrayList<>();
+        updatedRowsBefore = new BitSet();
+        updatedRowsAfter = new BitSet();
+    }
+
+    // Grow the window to cover the supplied range of current rows, taking in
+    // the original Layers of any rows that it didn't cover before. This must
+    // be done before any structural edit to those rows, or at the row where
+    // rows are to be added.
+    void coverRows( final int fromRowIndex, final int toRowIndex ) {
+        if ( !windowOpen ) {
+            windowOpen = true;
+            windowStart = fromRowIndex;
+            windowEnd = fromRowIndex;
+            updatedRowsAfter = updatedRowsBefore.get( fromRowIndex,
+                                                      Math.max( updatedRowsBefore.length(),
+                                                                fromRowIndex ) );
+            updatedRowsBefore.clear( fromRowIndex, Math.max( updatedRowsBefore.length(),
+                                                             fromRowIndex ) );
+        }
+
+        if ( fromRowIndex < windowStart ) {
+            final List< LayerProperties > coveredLayers = new ArrayList<>( windowStart
+                    - fromRowIndex );
+            for ( int rowIndex = fromRowIndex; rowIndex < windowStart; rowIndex++ ) {
+                coveredLayers.add( layerSource.apply( rowIndex ) );
+            }
+            removedLayers.addAll( 0, coveredLayers );
+            updatedRowsBefore.clear( fromRowIndex, windowStart );
+            windowStart = fromRowIndex;
+        }
+
+        if ( toRowIndex > windowEnd ) {
+            for ( int rowIndex = windowEnd; rowIndex < toRowIndex; rowIndex++ ) {
+                removedLayers.add( layerSource.apply( rowIndex ) );
+            }
+            final int coveredRowCount = toRowIndex - windowEnd;
+            updatedRowsAfter = updatedRowsAfter.get( coveredRowCount,
+                                                     Math.max( updatedRowsAfter.length(),
+                                                               coveredRowCount ) );
+            windowEnd = toRowIndex;
+        }
+    }
+
+    // Make the single change that reports every logged edit, or return null
+    // if there is nothing to report.
+    ListChangeListener.Change< LayerProperties > makeChange() {
+        final LayerTransactionChange change = new LayerTransactionChange( layerCollection );
+        addUpdatedRows( change, updatedRowsBefore, 0 );
+        if ( windowOpen && ( ( windowEnd > windowStart ) || !removedLayers.isEmpty() ) ) {
+            change.addReplacement( windowStart, windowEnd, removedLayers );
+        }
+        addUpdatedRows( change, updatedRowsAfter, windowEnd );
+
+        return change.isEmpty() ? null : change;
+    }
+
+    // Log that the supplied row has been updated.
+    // NOTE: Updates within the window are already covered by the window.
+    void rowUpdated( final int rowIndex ) {
+        if ( !windowOpen || ( rowIndex < windowStart ) ) {
+            updatedRowsBefore.set( rowIndex );
+        }
+        else if ( rowIndex >= windowEnd ) {
+            updatedRowsAfter.set( rowIndex - windowEnd );
+        }
+    }
+
+    // Log that the supplied number of rows have been added to the window,
+    // which was first grown to cover the row where they were added.
+    void rowsAdded( final int rowCount ) {
+        windowEnd += rowCount;
+    }
+
+    // Log that the supplied number of rows have been removed from the window,
+    // which was first grown to cover them.
+    void rowsRemoved( final int rowCount ) {
+        windowEnd -= rowCount;
+    }
+
+    private static void addUpdatedRows( final LayerTransactionChange change,
+                                        final BitSet updatedRows,
+                                        final int rowOffset ) {
+        for ( int fromRowIndex = updatedRows.nextSetBit( 0 ); fromRowIndex >= 0; ) {
+            final int toRowIndex = updatedRows.nextClearBit( fromRowIndex );
+            change.addUpdate( rowOffset + fromRowIndex, rowOffset + toRowIndex );
+            fromRowIndex = updatedRows.nextSetBit( toRowIndex );
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that the patched assignable Layer Names match the ones worked out
+// from scratch, whatever edits are made to the collection.
+final class AssignableLayerNamesTest {
+
+    private static final String[] LAYER_NAMES = { "A", "B", "C", "D", "E", " ", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+        LayerUtilities.VARIOUS_LAYER_NAME };
+
+    @Test
+    void liveListIsHandedOut() {
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        final ObservableList< String > layerNames = LayerUtilities
+                .getAssignableLayerNames( layerCollection, true );
+        assertSame( layerNames, LayerUtilities.getAssignableLayerNames( layerCollection, true ) );
+        assertSame( layerCollection.getAssignableLayerNames(),
+                    LayerUtilities.getAssignableLayerNames( layerCollection, false ) );
+
+        layerCollection.add( makeLayer( "A" ) ); //$NON-NLS-1$
+        assertEquals( getLayerNames( layerCollection, true ), layerNames );
+    }
+
+    @Test
+    void randomEditsMatchPlainScan() {
+        randomEditsMatchPlainScan( LayerUtilities.makeIndexedLayerCollection(), 14L );
+        randomEditsMatchPlainScan( LayerUtilities.makeLayerCollection(), 15L );
+    }
+
+    private static void randomEditsMatchPlainScan( final ObservableList< LayerProperties > layerCollection,
+                                                   final long seed ) {
+        final Random random = new Random( seed );
+        final AssignableLayerNames assignableLayerNames = new AssignableLayerNames( layerCollection,
+                                                                                    false );
+        final AssignableLayerNames multiEditLayerNames = new AssignableLayerNames( layerCollection,
+                                                                                   true );
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = layerCollection.size();
+            final int layerIndex = random.nextInt( layerCount + 1 );
+            final int operation = ( layerCount > 0 ) ? random.nextInt( 8 ) : 0;
+            switch ( operation ) {
+            case 0:
+                layerCollection.add( layerIndex, makeLayer( random ) );
+                break;
+            case 1:
+                layerCollection.remove( Math.min( layerIndex, layerCount - 1 ) );
+                break;
+            case 2:
+                layerCollection.set( Math.min( layerIndex, layerCount - 1 ), makeLayer( random ) );
+                break;
+            case 3:
+            case 4:
+                layerCollection.get( Math.min( layerIndex, layerCount - 1 ) )
+                        .setLayerName( LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ] );
+                break;
+            case 5:
+            case 6:
+                layerCollection.get( Math.min( layerIndex, layerCount - 1 ) )
+                        .setLayerVisible( random.nextBoolean() );
+                break;
+            default:
+                // NOTE: Large changes are rebuilt rather than patched.
+                final List< LayerProperties > layers = new ArrayList<>();
+                for ( int i = random.nextInt( 24 ); i > 0; i-- ) {
+                    layers.add( makeLayer( random ) );
+                }
+                layerCollection.addAll( layerIndex, layers );
+                break;
+            }
+
+            assertEquals( getLayerNames( layerCollection, false ),
+                          assignableLayerNames.getLayerNames() );
+            assertEquals( getLayerNames( layerCollection, true ),
+                          multiEditLayerNames.getLayerNames() );
+        }
+    }
+
+    private static List< String > getLayerNames( final List< LayerProperties > layerCollection,
+                                                 final boolean supportMultiEdit ) {
+        final Set< String > layerNames = new LinkedHashSet<>();
+        if ( supportMultiEdit ) {
+            layerNames.add( LayerUtilities.VARIOUS_LAYER_NAME );
+        }
+        for ( final LayerProperties layer : layerCollection ) {
+            if ( layer.isLayerVisible() && !layer.isLayerNameBlank() ) {
+                layerNames.add( layer.getLayerName() );
+            }
+        }
+
+        return new ArrayList<>( layerNames );
+    }
+
+    private static LayerProperties makeLayer( final Random random ) {
+        return new LayerProperties( LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ],
+                                    Color.BLACK,
+                                    false,
+                                    random.nextInt( 4 ) > 0,
+                                    false );
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.paint.Color;
+
+// Checks the dispatcher with an executor that only runs its tasks when asked,
+// standing in for the JavaFX pulse.
+final class LayerChangeDispatcherTest {
+
+    @Test
+    void burstOfEditsIsFlushedOnce() {
+        final LayerCollection layerCollection = makeLayerCollection( 4 );
+        final List< Runnable > pendingTasks = new ArrayList<>();
+        final LayerChangeDispatcher layerChangeDispatcher = new LayerChangeDispatcher( layerCollection,
+                                                                                       pendingTasks::add );
+        final int[] changeCount = new int[ 1 ];
+        layerCollection.addListener( ( ListChangeListener< LayerProperties > ) change -> changeCount[ 0 ]++ );
+
+        final LayerProperties layer1 = layerCollection.get( 1 );
+        final LayerProperties layer2 = layerCollection.get( 2 );
+        layerChangeDispatcher.setLayerColor( layer1, Color.RED );
+        layerChangeDispatcher.setLayerColor( layer1, Color.BLUE );
+        layerChangeDispatcher.setLayerName( layer2, "Renamed" ); //$NON-NLS-1$
+        layerChangeDispatcher.setLayerVisible( layer2, false );
+        layerChangeDispatcher.setLayerLocked( layer1, true );
+
+        assertEquals( 1, pendingTasks.size() );
+        assertTrue( layerChangeDispatcher.hasPendingEdits() );
+        assertEquals( Color.BLACK, layer1.getLayerColor() );
+
+        pendingTasks.remove( 0 ).run();
+        assertFalse( layerChangeDispatcher.hasPendingEdits() );
+        assertEquals( 1, changeCount[ 0 ] );
+        assertEquals( Color.BLUE, layer1.getLayerColor() );
+        assertTrue( layer1.isLayerLocked() );
+        assertEquals( "Renamed", layer2.getLayerName() ); //$NON-NLS-1$
+        assertFalse( layer2.isLayerVisible() );
+
+        // Once flushed, the next edit schedules another flush.
+        layerChangeDispatcher.setLayerLocked( layer1, false );
+        assertEquals( 1, pendingTasks.size() );
+    }
+
+    @Test
+    void editsFromWorkersAreAllApplied() throws InterruptedException {
+        final LayerCollection layerCollection = makeLayerCollection( 40 );
+        final List< Runnable > pendingTasks = new ArrayList<>();
+        final LayerChangeDispatcher layerChangeDispatcher = new LayerChangeDispatcher( layerCollection,
+                                                                                       task -> {
+                                                                                           synchronized ( pendingTasks ) {
+                                                                                               pendingTasks
+                                                                                                       .add( task );
+                                                                                           }
+                                                                                       } );
+
+        final List< Thread > workers = new ArrayList<>();
+        for ( int workerNumber = 0; workerNumber < 4; workerNumber++ ) {
+            final int firstLayerIndex = 1 + ( workerNumber * 10 );
+            final Thread worker = new Thread( () -> {
+                for ( int pass = 0; pass < 100; pass++ ) {
+                    for ( int layerIndex = firstLayerIndex; layerIndex < ( firstLayerIndex + 10 ); layerIndex++ ) {
+                        layerChangeDispatcher.setLayerLocked( layerCollection.get( layerIndex ),
+                                                              ( pass % 2 ) == 0 );
+                    }
+                }
+            } );
+            workers.add( worker );
+            worker.start();
+        }
+
+        // Run whatever has been scheduled while the workers are still busy.
+        boolean workersBusy = true;
+        while ( workersBusy ) {
+            workersBusy = false;
+            for ( final Thread worker : workers ) {
+                workersBusy |= worker.isAlive();
+            }
+            runPendingTasks( pendingTasks );
+        }
+        runPendingTasks( pendingTasks );
+
+        // The last pass of every worker unlocks its Layers, which are all of
+        // the Layers after the Default Layer.
+        assertFalse( layerChangeDispatcher.hasPendingEdits() );
+        assertEquals( 41, layerCollection.size() );
+        for ( int layerIndex = 1; layerIndex < layerCollection.size(); layerIndex++ ) {
+            assertFalse( layerCollection.get( layerIndex ).isLayerLocked() );
+        }
+    }
+
+    private static LayerCollection makeLayerCollection( final int layerCount ) {
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        for ( int layerNumber = 1; layerNumber <= layerCount; layerNumber++ ) {
+            layerCollection.add( new LayerProperties( "Layer " + layerNumber, //$NON-NLS-1$
+                                                      Color.BLACK,
+                                                      false,
+                                                      true,
+                                                      true ) );
+        }
+
+        return layerCollection;
+    }
+
+    private static void runPendingTasks( final List< Runnable > pendingTasks ) {
+        final List< Runnable > tasks;
+        synchronized ( pendingTasks ) {
+            tasks = new ArrayList<>( pendingTasks );
+            pendingTasks.clear();
+        }
+        for ( final Runnable task : tasks ) {
+            task.run();
+        }
+    }
+
+}
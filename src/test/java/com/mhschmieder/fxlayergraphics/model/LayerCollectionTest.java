@@ -0,0 +1,132 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.paint.Color;
+
+// Checks that a Layer Collection only reports edits to its watched fields,
+// while its lookup indices and live views still hear about every edit.
+final class LayerCollectionTest {
+
+    @Test
+    void assignableLayerNamesFollowUnwatchedEdits() {
+        final LayerCollection layerCollection = LayerUtilities
+                .makeIndexedLayerCollection( LayerNameNormalizer.EXACT,
+                                             EnumSet.of( LayerField.ACTIVE ) );
+        final LayerProperties layer = makeLayer( "A" ); //$NON-NLS-1$
+        layerCollection.add( layer );
+
+        final List< String > layerNames = layerCollection.getAssignableLayerNames();
+        layer.setLayerName( "B" ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( LayerUtilities.DEFAULT_LAYER_NAME, "B" ), //$NON-NLS-1$
+                      layerNames );
+
+        layer.setLayerVisible( false );
+        assertEquals( Arrays.asList( LayerUtilities.DEFAULT_LAYER_NAME ), layerNames );
+    }
+
+    @Test
+    void onlyWatchedEditsAreReported() {
+        final LayerCollection layerCollection = LayerUtilities
+                .makeIndexedLayerCollection( LayerNameNormalizer.EXACT,
+                                             EnumSet.of( LayerField.VISIBLE,
+                                                         LayerField.ACTIVE ) );
+        final LayerProperties layer = makeLayer( "A" ); //$NON-NLS-1$
+        layerCollection.add( layer );
+
+        final List< Integer > updatedPositions = new ArrayList<>();
+        layerCollection.addListener( ( ListChangeListener< LayerProperties > ) change -> {
+            while ( change.next() ) {
+                assertTrue( change.wasUpdated() );
+                for ( int i = change.getFrom(); i < change.getTo(); i++ ) {
+                    updatedPositions.add( Integer.valueOf( i ) );
+                }
+            }
+        } );
+
+        layer.setLayerColor( Color.RED );
+        layer.setLayerLocked( true );
+        layer.setLayerName( "B" ); //$NON-NLS-1$
+        assertTrue( updatedPositions.isEmpty() );
+
+        // The unwatched edits still reach the lookup indices.
+        assertTrue( layerCollection.getLockedLayerPositions().get( 1 ) );
+        assertEquals( layer, layerCollection.getLayerByName( "B" ) ); //$NON-NLS-1$
+        assertEquals( null, layerCollection.getLayerByName( "A" ) ); //$NON-NLS-1$
+
+        layer.setLayerVisible( false );
+        assertEquals( Arrays.asList( Integer.valueOf( 1 ) ), updatedPositions );
+    }
+
+    @Test
+    void unwatchedFieldIsHeardOnceListenedTo() {
+        final LayerCollection layerCollection = LayerUtilities
+                .makeIndexedLayerCollection( LayerNameNormalizer.EXACT,
+                                             EnumSet.of( LayerField.VISIBLE ) );
+        final LayerProperties layer1 = makeLayer( "A" ); //$NON-NLS-1$
+        layerCollection.add( layer1 );
+
+        final List< Object > layerColors = new ArrayList<>();
+        layerCollection.addLayerChangeListener( LayerField.COLOR,
+                                                layerChangeEvent -> layerColors
+                                                        .add( layerChangeEvent.getNewValue() ) );
+        final LayerProperties layer2 = makeLayer( "B" ); //$NON-NLS-1$
+        layerCollection.add( layer2 );
+
+        layer1.setLayerColor( Color.RED );
+        layer2.setLayerColor( Color.BLUE );
+        assertEquals( Arrays.asList( Color.RED, Color.BLUE ), layerColors );
+
+        // Removed Layers are no longer heard.
+        layerCollection.remove( layer1 );
+        layer1.setLayerColor( Color.GREEN );
+        assertFalse( layerColors.contains( Color.GREEN ) );
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
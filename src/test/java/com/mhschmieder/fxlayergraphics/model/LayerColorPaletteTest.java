@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.scene.paint.Color;
+
+final class LayerColorPaletteTest {
+
+    @Test
+    void equalLayerColorsAreShared() {
+        final Color layerColor = LayerColorPalette.intern( Color.rgb( 255, 128, 64 ) );
+        assertSame( layerColor, LayerColorPalette.intern( Color.web( "#ff8040" ) ) ); //$NON-NLS-1$
+        assertSame( layerColor, LayerColorPalette.getLayerColorForArgb( 0xffff8040 ) );
+
+        final LayerProperties layer1 = new LayerProperties( "A", //$NON-NLS-1$
+                                                            Color.rgb( 255, 128, 64 ),
+                                                            false,
+                                                            true,
+                                                            false );
+        final LayerProperties layer2 = new LayerProperties( "B", //$NON-NLS-1$
+                                                            Color.rgb( 255, 128, 64 ),
+                                                            false,
+                                                            true,
+                                                            false );
+        assertSame( layer1.getLayerColor(), layer2.getLayerColor() );
+        assertEquals( 0xffff8040, layer1.getLayerColorArgb() );
+    }
+
+    @Test
+    void noLayerColorIsTransparentBlack() {
+        assertNull( LayerColorPalette.intern( null ) );
+        assertEquals( 0, LayerColorPalette.toArgb( null ) );
+
+        final LayerProperties layer = new LayerProperties( "A", null, false, true, false ); //$NON-NLS-1$
+        assertNull( layer.getLayerColor() );
+        assertNull( layer.layerColorProperty().get() );
+        assertEquals( 0, layer.getLayerColorArgb() );
+    }
+
+    @Test
+    void inexactLayerColorsArePassedBack() {
+        final Color layerColor = Color.color( 0.3, 0.3, 0.3 );
+        assertSame( layerColor, LayerColorPalette.intern( layerColor ) );
+        assertEquals( Color.rgb( 77, 77, 77 ),
+                      LayerColorPalette.getLayerColorForArgb( LayerColorPalette.toArgb( layerColor ) ) );
+    }
+
+    // NOTE: Far more Layer Colors are used here than the palette has slots
+    // for, so Layer Colors are displaced, but never mixed up.
+    @Test
+    void manyLayerColorsMatchTheirArgbForm() {
+        for ( int pass = 0; pass < 2; pass++ ) {
+            for ( int layerColorArgb = 0xff000000; layerColorArgb < 0xff000000 + 70000; layerColorArgb += 7 ) {
+                final Color layerColor = LayerColorPalette.getLayerColorForArgb( layerColorArgb );
+                assertEquals( layerColorArgb, LayerColorPalette.toArgb( layerColor ) );
+                assertEquals( layerColor, LayerColorPalette.intern( Color.rgb( ( layerColorArgb >>> 16 ) & 0xff,
+                                                                             ( layerColorArgb >>> 8 ) & 0xff,
+                                                                             layerColorArgb & 0xff ) ) );
+            }
+        }
+
+        // The most recently used Layer Colors are still shared.
+        final Color layerColor = LayerColorPalette.intern( Color.rgb( 1, 2, 3 ) );
+        assertSame( layerColor, LayerColorPalette.intern( Color.rgb( 1, 2, 3 ) ) );
+    }
+
+    @Test
+    void concurrentInterningMatchesItsInput() throws InterruptedException {
+        final AtomicReference< Color > mismatch = new AtomicReference<>();
+        final List< Thread > threads = new ArrayList<>();
+        for ( int threadNumber = 0; threadNumber < 8; threadNumber++ ) {
+            final Thread thread = new Thread( () -> {
+                for ( int i = 0; i < 20000; i++ ) {
+                    final Color layerColor = Color.rgb( i % 256, ( i / 256 ) % 256, 7 );
+                    final Color internedLayerColor = LayerColorPalette.intern( layerColor );
+                    final Color argbLayerColor = LayerColorPalette
+                            .getLayerColorForArgb( LayerColorPalette.toArgb( layerColor ) );
+                    if ( !layerColor.equals( internedLayerColor )
+                            || !layerColor.equals( argbLayerColor ) ) {
+                        mismatch.set( layerColor );
+                    }
+                }
+            } );
+            threads.add( thread );
+            thread.start();
+        }
+        for ( final Thread thread : threads ) {
+            thread.join();
+        }
+
+        assertNull( mismatch.get() );
+    }
+
+    @Test
+    void layerStateRestoresLayerColors() {
+        final List< LayerProperties > layerCollection = new ArrayList<>();
+        layerCollection.add( new LayerProperties( "A", Color.RED, false, true, false ) ); //$NON-NLS-1$
+        layerCollection.add( new LayerProperties( "B", null, false, true, false ) ); //$NON-NLS-1$
+        final LayerState layerState = new LayerState( layerCollection );
+
+        layerCollection.get( 0 ).setLayerColor( Color.BLUE );
+        layerCollection.get( 1 ).layerColorProperty().set( Color.GREEN );
+        for ( final LayerProperties layer : layerCollection ) {
+            layerState.restoreLayer( layer );
+        }
+
+        assertEquals( Color.RED, layerCollection.get( 0 ).getLayerColor() );
+        assertNull( layerCollection.get( 1 ).getLayerColor() );
+    }
+
+}
@@ -0,0 +1,156 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.NumberFormat;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that the flag index of the indexed Layer Collection matches a scan
+// of a plain Layer Collection that gets the same edits.
+final class LayerFlagIndexTest {
+
+    private static final String[] LAYER_NAMES = { "Walls", "Doors", "Windows" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    @Test
+    void randomEditsMatchPlainCollection() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final Random random = new Random( 13L );
+        final ObservableList< LayerProperties > plainCollection = LayerUtilities
+                .makeLayerCollection();
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        final Comparator< LayerProperties > layerNameComparator = Comparator
+                .comparing( LayerProperties::getLayerName );
+
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = plainCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            switch ( ( layerCount > 1 ) ? random.nextInt( 10 ) : 0 ) {
+            case 0:
+            case 1:
+                final String layerName = LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ];
+                final boolean layerVisible = random.nextBoolean();
+                final boolean layerLocked = random.nextBoolean();
+                LayerUtilities.addLayer( plainCollection,
+                                         makeLayer( layerName, layerVisible, layerLocked ),
+                                         numberFormat );
+                LayerUtilities.addLayer( layerCollection,
+                                         makeLayer( layerName, layerVisible, layerLocked ),
+                                         numberFormat );
+                break;
+            case 2:
+                final int toLayerIndex = layerIndex + random.nextInt( Math.min( layerCount - layerIndex,
+                                                                                3 ) + 1 );
+                plainCollection.remove( layerIndex, toLayerIndex );
+                layerCollection.remove( layerIndex, toLayerIndex );
+                break;
+            case 3:
+                final boolean visible = random.nextBoolean();
+                LayerUtilities.enforceHiddenLayerPolicy( plainCollection, layerIndex, visible );
+                LayerUtilities.enforceHiddenLayerPolicy( layerCollection, layerIndex, visible );
+                break;
+            case 4:
+                final String activeLayerName = plainCollection.get( layerIndex ).getLayerName();
+                LayerUtilities.enforceActiveLayerPolicy( plainCollection, activeLayerName, false );
+                LayerUtilities.enforceActiveLayerPolicy( layerCollection, activeLayerName, false );
+                break;
+            case 5:
+                final boolean locked = random.nextBoolean();
+                plainCollection.get( layerIndex ).setLayerLocked( locked );
+                layerCollection.get( layerIndex ).setLayerLocked( locked );
+                break;
+            case 6:
+                LayerUtilities.invertLayerVisibility( plainCollection );
+                LayerUtilities.invertLayerVisibility( layerCollection );
+                break;
+            case 7:
+                LayerUtilities.isolateLayer( plainCollection, layerIndex );
+                LayerUtilities.isolateLayer( layerCollection, layerIndex );
+                break;
+            case 8:
+                LayerUtilities.showAllLayers( plainCollection );
+                LayerUtilities.showAllLayers( layerCollection );
+                break;
+            default:
+                plainCollection.sort( layerNameComparator );
+                layerCollection.sort( layerNameComparator );
+                break;
+            }
+
+            assertEquals( getLayerPositions( plainCollection, LayerProperties::isLayerActive ),
+                          layerCollection.getActiveLayerPositions() );
+            assertEquals( getLayerPositions( plainCollection, LayerProperties::isLayerVisible ),
+                          layerCollection.getVisibleLayerPositions() );
+            assertEquals( getLayerPositions( plainCollection, layer -> !layer.isLayerVisible() ),
+                          layerCollection.getHiddenLayerPositions() );
+            assertEquals( getLayerPositions( plainCollection, LayerProperties::isLayerLocked ),
+                          layerCollection.getLockedLayerPositions() );
+            assertEquals( getLayerPositions( plainCollection,
+                                             layer -> layer.isLayerVisible()
+                                                     && !layer.isLayerLocked() ),
+                          layerCollection.getVisibleUnlockedLayerPositions() );
+            assertEquals( LayerUtilities.getHiddenLayerCount( plainCollection ),
+                          LayerUtilities.getHiddenLayerCount( layerCollection ) );
+            assertEquals( LayerUtilities.getActiveLayerIndex( plainCollection ),
+                          LayerUtilities.getActiveLayerIndex( layerCollection ) );
+        }
+    }
+
+    private static BitSet getLayerPositions( final List< LayerProperties > layers,
+                                             final Predicate< LayerProperties > layerFlag ) {
+        final BitSet layerPositions = new BitSet();
+        for ( int layerIndex = 0; layerIndex < layers.size(); layerIndex++ ) {
+            if ( layerFlag.test( layers.get( layerIndex ) ) ) {
+                layerPositions.set( layerIndex );
+            }
+        }
+        return layerPositions;
+    }
+
+    private static LayerProperties makeLayer( final String layerName,
+                                              final boolean layerVisible,
+                                              final boolean layerLocked ) {
+        return new LayerProperties( layerName, Color.BLACK, false, layerVisible, layerLocked );
+    }
+
+}
@@ -0,0 +1,170 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that name lookups on the indexed Layer Collection give the same
+// answers as on a plain Layer Collection, whatever edits are made to both.
+final class LayerNameIndexTest {
+
+    private static final String[] LAYER_NAMES = { "Walls", "Doors", "walls", " Walls", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        "Layer 1", "Layer 2", "" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    @Test
+    void normalizedLookupsMatchPlainScan() {
+        final LayerNameNormalizer layerNameNormalizer = LayerNameNormalizer.CAD_INVARIANT;
+        final Random random = new Random( 8L );
+        final LayerCollection layerCollection = LayerUtilities
+                .makeIndexedLayerCollection( layerNameNormalizer );
+
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = layerCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            final String layerName = LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ];
+            switch ( ( layerCount > 1 ) ? random.nextInt( 4 ) : 0 ) {
+            case 0:
+                layerCollection.add( layerIndex, makeLayer( layerName ) );
+                break;
+            case 1:
+                layerCollection.remove( layerIndex );
+                break;
+            default:
+                layerCollection.get( layerIndex ).setLayerName( layerName );
+                break;
+            }
+
+            // Scan a plain copy, comparing the normalized Layer Names.
+            final List< LayerProperties > layers = new ArrayList<>( layerCollection );
+            final int excludeLayerIndex = random.nextInt( layers.size() + 1 ) - 1;
+            for ( final String probeLayerName : LAYER_NAMES ) {
+                final String probeLayerNameKey = layerNameNormalizer
+                        .normalizeLayerName( probeLayerName );
+                LayerProperties firstLayer = null;
+                int layerNameCount = 0;
+                boolean layerNameUnique = true;
+                for ( int i = 0; i < layers.size(); i++ ) {
+                    final LayerProperties layer = layers.get( i );
+                    if ( probeLayerNameKey
+                            .equals( layerNameNormalizer.normalizeLayerName( layer.getLayerName() ) ) ) {
+                        firstLayer = ( firstLayer != null ) ? firstLayer : layer;
+                        layerNameCount++;
+                        layerNameUnique &= ( i == excludeLayerIndex );
+                    }
+                }
+
+                assertSame( firstLayer, layerCollection.getLayerByName( probeLayerName ) );
+                assertEquals( layerNameCount, layerCollection.getLayerNameCount( probeLayerName ) );
+                assertEquals( layerNameUnique,
+                              LayerUtilities.isLayerNameUnique( probeLayerName,
+                                                                layerCollection,
+                                                                excludeLayerIndex ) );
+            }
+        }
+    }
+
+    @Test
+    void randomEditsMatchPlainCollection() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final Random random = new Random( 1L );
+        final ObservableList< LayerProperties > plainCollection = LayerUtilities
+                .makeLayerCollection();
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = plainCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            final String layerName = LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ];
+            switch ( ( layerCount > 1 ) ? random.nextInt( 5 ) : 0 ) {
+            case 0:
+                LayerUtilities.addLayer( plainCollection, makeLayer( layerName ), numberFormat );
+                LayerUtilities.addLayer( layerCollection, makeLayer( layerName ), numberFormat );
+                break;
+            case 1:
+                plainCollection.remove( layerIndex );
+                layerCollection.remove( layerIndex );
+                break;
+            case 2:
+                plainCollection.set( layerIndex, makeLayer( layerName ) );
+                layerCollection.set( layerIndex, makeLayer( layerName ) );
+                break;
+            default:
+                // Rename without uniquefying, so that Layer Names get shared.
+                plainCollection.get( layerIndex ).setLayerName( layerName );
+                layerCollection.get( layerIndex ).setLayerName( layerName );
+                break;
+            }
+
+            final int excludeLayerIndex = random.nextInt( layerCount + 1 ) - 1;
+            for ( final String probeLayerName : LAYER_NAMES ) {
+                assertEquals( LayerUtilities.getLayerIndex( plainCollection, probeLayerName ),
+                              LayerUtilities.getLayerIndex( layerCollection, probeLayerName ) );
+                assertEquals( LayerUtilities.isLayerNameUnique( probeLayerName,
+                                                                plainCollection,
+                                                                excludeLayerIndex ),
+                              LayerUtilities.isLayerNameUnique( probeLayerName,
+                                                                layerCollection,
+                                                                excludeLayerIndex ) );
+                assertEquals( getLayerNameCount( plainCollection, probeLayerName ),
+                              layerCollection.getLayerNameCount( probeLayerName ) );
+            }
+        }
+    }
+
+    private static int getLayerNameCount( final ObservableList< LayerProperties > layers,
+                                          final String layerName ) {
+        int layerNameCount = 0;
+        for ( final LayerProperties layer : layers ) {
+            if ( layer.getLayerName().equals( layerName ) ) {
+                layerNameCount++;
+            }
+        }
+        return layerNameCount;
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
@@ -0,0 +1,152 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.paint.Color;
+
+// Checks that the patched suggestions match the suggestions worked out from
+// scratch, whatever edits are made to the collection.
+final class LayerNameSuggestionsTest {
+
+    private static final String[] LAYER_NAMES = { "A-WALL", "a-wall", "A-DOOR", "S-BEAM", "Wall", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        "E-LITE-WALL", "" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static final String[] FILTERS     = { "", "a", "A-W", "wall", "s-", "x" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
+    @Test
+    void otherEditsLeaveSuggestionsAlone() {
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        layerCollection.add( makeLayer( "A-WALL" ) ); //$NON-NLS-1$
+        final LayerNameSuggestions layerNameSuggestions = new LayerNameSuggestions( layerCollection,
+                                                                                    false );
+        final int[] changeCount = new int[ 1 ];
+        layerNameSuggestions.getLayerNames()
+                .addListener( ( ListChangeListener< String > ) change -> changeCount[ 0 ]++ );
+
+        final LayerProperties layer = layerCollection.get( 1 );
+        layer.setLayerColor( Color.RED );
+        layer.setLayerVisible( false );
+        layer.setLayerLocked( true );
+        layerCollection.add( makeLayer( "A-WALL" ) ); //$NON-NLS-1$
+        layerCollection.remove( 2 );
+        assertEquals( 0, changeCount[ 0 ] );
+
+        layer.setLayerName( "A-DOOR" ); //$NON-NLS-1$
+        assertEquals( 2, changeCount[ 0 ] );
+        assertEquals( getLayerNames( layerCollection, "", false ), //$NON-NLS-1$
+                      layerNameSuggestions.getLayerNames() );
+    }
+
+    @Test
+    void randomEditsMatchPlainScan() {
+        final Random random = new Random( 9L );
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        final LayerNameSuggestions prefixSuggestions = new LayerNameSuggestions( layerCollection,
+                                                                                 false );
+        final LayerNameSuggestions segmentSuggestions = new LayerNameSuggestions( layerCollection,
+                                                                                  true );
+        for ( int step = 0; step < 3000; step++ ) {
+            final int layerCount = layerCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            switch ( ( layerCount > 1 ) ? random.nextInt( 7 ) : 0 ) {
+            case 0:
+                layerCollection.add( random.nextInt( layerCount + 1 ), makeLayer( random ) );
+                break;
+            case 1:
+                layerCollection.remove( layerIndex );
+                break;
+            case 2:
+                layerCollection.set( layerIndex, makeLayer( random ) );
+                break;
+            case 3:
+                layerCollection.get( layerIndex )
+                        .setLayerName( LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ] );
+                break;
+            case 4:
+                layerCollection.get( layerIndex ).setLayerVisible( random.nextBoolean() );
+                break;
+            case 5:
+                try ( final LayerTransaction layerTransaction = layerCollection.beginTransaction() ) {
+                    layerCollection.remove( layerIndex );
+                    layerCollection.add( makeLayer( random ) );
+                    layerCollection.get( layerCollection.size() - 1 )
+                            .setLayerName( LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ] );
+                }
+                break;
+            default:
+                final String filter = FILTERS[ random.nextInt( FILTERS.length ) ];
+                prefixSuggestions.setFilterText( filter );
+                segmentSuggestions.setFilterText( filter );
+                break;
+            }
+
+            assertEquals( getLayerNames( layerCollection, prefixSuggestions.getFilterText(), false ),
+                          prefixSuggestions.getLayerNames() );
+            assertEquals( getLayerNames( layerCollection, segmentSuggestions.getFilterText(), true ),
+                          segmentSuggestions.getLayerNames() );
+        }
+    }
+
+    private static List< String > getLayerNames( final List< LayerProperties > layerCollection,
+                                                  final String filter,
+                                                  final boolean matchSegments ) {
+        final Set< String > layerNames = new TreeSet<>( LayerNameTrie::compareLayerNames );
+        for ( final LayerProperties layer : layerCollection ) {
+            if ( LayerNameTrie.hasPrefix( layer.getLayerName(), filter, matchSegments ) ) {
+                layerNames.add( layer.getLayerName() );
+            }
+        }
+
+        return new ArrayList<>( layerNames );
+    }
+
+    private static LayerProperties makeLayer( final Random random ) {
+        return makeLayer( LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ] );
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
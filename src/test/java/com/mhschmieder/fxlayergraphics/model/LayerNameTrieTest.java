@@ -0,0 +1,166 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+// Checks the trie's queries against a plain scan of the same Layer Names.
+final class LayerNameTrieTest {
+
+    private static final String[] SEGMENTS   = { "A", "WALL", "wall", "WALLS", "FULL", "Door", "D" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+
+    private static final String   DELIMITERS = "-_ .-"; //$NON-NLS-1$
+
+    @Test
+    void wholeSegmentsAreMatched() {
+        final LayerNameTrie layerNameTrie = new LayerNameTrie();
+        for ( final String layerName : Arrays.asList( "A-WALL", "A-WALL-FULL", "A-WALLS", "WALL", "X--wall" ) ) { //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+            layerNameTrie.addLayerName( layerName );
+        }
+
+        assertEquals( new TreeSet<>( Arrays.asList( "A-WALL", "A-WALL-FULL", "WALL", "X--wall" ) ), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                      collectLayerNamesWithSegment( layerNameTrie, "wall" ) ); //$NON-NLS-1$
+        assertEquals( new TreeSet<>( Arrays.asList( "A-WALL-FULL" ) ), //$NON-NLS-1$
+                      collectLayerNamesWithSegment( layerNameTrie, "WALL-FULL" ) ); //$NON-NLS-1$
+        assertTrue( collectLayerNamesWithSegment( layerNameTrie, "WAL" ).isEmpty() ); //$NON-NLS-1$
+    }
+
+    @Test
+    void addAndRemoveReportFirstAndLastLayerNames() {
+        final LayerNameTrie layerNameTrie = new LayerNameTrie();
+        assertTrue( layerNameTrie.addLayerName( "A-WALL" ) ); //$NON-NLS-1$
+        assertFalse( layerNameTrie.addLayerName( "A-WALL" ) ); //$NON-NLS-1$
+        assertTrue( layerNameTrie.addLayerName( "a-wall" ) ); //$NON-NLS-1$
+        assertFalse( layerNameTrie.removeLayerName( "A-WALL" ) ); //$NON-NLS-1$
+        assertTrue( layerNameTrie.removeLayerName( "A-WALL" ) ); //$NON-NLS-1$
+        assertFalse( layerNameTrie.removeLayerName( "A-WALL" ) ); //$NON-NLS-1$
+        assertTrue( layerNameTrie.removeLayerName( "a-wall" ) ); //$NON-NLS-1$
+        assertFalse( layerNameTrie.addLayerName( "" ) ); //$NON-NLS-1$
+    }
+
+    @Test
+    void randomLayerNamesMatchPlainScan() {
+        final Random random = new Random( 9L );
+        final LayerNameTrie layerNameTrie = new LayerNameTrie();
+        final List< String > layerNames = new ArrayList<>();
+        for ( int step = 0; step < 4000; step++ ) {
+            if ( layerNames.isEmpty() || ( random.nextInt( 3 ) > 0 ) ) {
+                final String layerName = makeLayerName( random );
+                assertEquals( !layerNames.contains( layerName ),
+                              layerNameTrie.addLayerName( layerName ) );
+                layerNames.add( layerName );
+            }
+            else {
+                final String layerName = layerNames.remove( random.nextInt( layerNames.size() ) );
+                assertEquals( !layerNames.contains( layerName ),
+                              layerNameTrie.removeLayerName( layerName ) );
+            }
+
+            final String query = random.nextBoolean()
+                ? SEGMENTS[ random.nextInt( SEGMENTS.length ) ]
+                : makeLayerName( random );
+            final String prefix = query.substring( 0, random.nextInt( query.length() + 1 ) );
+            for ( final boolean matchSegments : new boolean[] { false, true } ) {
+                final Set< String > matchingLayerNames = new TreeSet<>();
+                layerNameTrie.collectLayerNames( prefix, matchSegments, matchingLayerNames );
+                final Set< String > scannedLayerNames = new TreeSet<>();
+                for ( final String layerName : layerNames ) {
+                    if ( LayerNameTrie.hasPrefix( layerName, prefix, matchSegments ) ) {
+                        scannedLayerNames.add( layerName );
+                    }
+                }
+                assertEquals( scannedLayerNames, matchingLayerNames );
+            }
+
+            final Set< String > scannedLayerNames = new TreeSet<>();
+            for ( final String layerName : layerNames ) {
+                if ( hasWholeSegments( layerName, query ) ) {
+                    scannedLayerNames.add( layerName );
+                }
+            }
+            assertEquals( scannedLayerNames, collectLayerNamesWithSegment( layerNameTrie, query ) );
+        }
+    }
+
+    private static Set< String > collectLayerNamesWithSegment( final LayerNameTrie layerNameTrie,
+                                                               final String segment ) {
+        final Set< String > layerNames = new TreeSet<>();
+        layerNameTrie.collectLayerNamesWithSegment( segment, layerNames );
+        return layerNames;
+    }
+
+    // Check for the supplied run of segments the slow way, by splitting the
+    // Layer Name into its segments and comparing each run of them in turn.
+    private static boolean hasWholeSegments( final String layerName, final String segments ) {
+        final String foldedLayerName = layerName.toLowerCase( Locale.ROOT );
+        final String foldedSegments = segments.toLowerCase( Locale.ROOT );
+        for ( int startIndex = foldedLayerName.indexOf( foldedSegments ); startIndex >= 0; startIndex = foldedLayerName
+                .indexOf( foldedSegments, startIndex + 1 ) ) {
+            final int endIndex = startIndex + foldedSegments.length();
+            final boolean segmentStart = ( startIndex == 0 )
+                    || ( ( DELIMITERS.indexOf( foldedLayerName.charAt( startIndex - 1 ) ) >= 0 )
+                            && ( DELIMITERS.indexOf( foldedLayerName.charAt( startIndex ) ) < 0 ) );
+            final boolean segmentEnd = ( DELIMITERS.indexOf( foldedLayerName.charAt( endIndex - 1 ) ) < 0 )
+                    && ( ( endIndex == foldedLayerName.length() )
+                            || ( DELIMITERS.indexOf( foldedLayerName.charAt( endIndex ) ) >= 0 ) );
+            if ( segmentStart && segmentEnd ) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String makeLayerName( final Random random ) {
+        final StringBuilder layerName = new StringBuilder( SEGMENTS[ random.nextInt( SEGMENTS.length ) ] );
+        for ( int segment = random.nextInt( 4 ); segment > 0; segment-- ) {
+            layerName.append( DELIMITERS.charAt( random.nextInt( DELIMITERS.length() ) ) );
+            if ( random.nextInt( 8 ) == 0 ) {
+                layerName.append( DELIMITERS.charAt( random.nextInt( DELIMITERS.length() ) ) );
+            }
+            layerName.append( SEGMENTS[ random.nextInt( SEGMENTS.length ) ] );
+        }
+        return layerName.toString();
+    }
+
+}
@@ -0,0 +1,178 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+import com.mhschmieder.fxlayergraphics.UniquefierAppendixCache;
+
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that the indexed Layer Collection hands out the same unique Layer
+// Names as a plain Layer Collection, including the reuse of freed numbers.
+final class LayerNameUniquefierTest {
+
+    private static final String[] LAYER_NAMES = { "Walls", "Walls 1", "Walls 2", "Walls 3", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        "Doors", "Doors 2" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static final String[] NORMALIZED_LAYER_NAMES = { "WALLS", "walls 1", " Walls 2", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        "Doors", "DOORS 2 " }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    @Test
+    void normalizedUniqueNamesMatchPlainScan() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final LayerNameNormalizer layerNameNormalizer = LayerNameNormalizer.CAD_INVARIANT;
+        final Random random = new Random( 8L );
+        final LayerCollection layerCollection = LayerUtilities
+                .makeIndexedLayerCollection( layerNameNormalizer );
+
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = layerCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            final String layerName = NORMALIZED_LAYER_NAMES[ random
+                    .nextInt( NORMALIZED_LAYER_NAMES.length ) ];
+            switch ( ( layerCount > 1 ) ? random.nextInt( 4 ) : 0 ) {
+            case 0:
+            case 1:
+                LayerUtilities.addLayer( layerCollection, makeLayer( layerName ), numberFormat );
+                break;
+            case 2:
+                layerCollection.remove( layerIndex );
+                break;
+            default:
+                layerCollection.get( layerIndex ).setLayerName( layerName );
+                break;
+            }
+
+            // Scan a plain copy for the lowest number whose normalized Layer
+            // Name isn't taken by any other Layer.
+            final List< LayerProperties > layers = new ArrayList<>( layerCollection );
+            final int excludeLayerIndex = random.nextInt( layers.size() + 1 ) - 1;
+            final int uniquefierNumber = random.nextInt( 3 );
+            for ( final String layerNameCandidate : NORMALIZED_LAYER_NAMES ) {
+                int number = uniquefierNumber;
+                String uniqueLayerName;
+                boolean layerNameTaken;
+                do {
+                    uniqueLayerName = layerNameCandidate + UniquefierAppendixCache
+                            .getUniquefierAppendix( number++, numberFormat );
+                    final String uniqueLayerNameKey = layerNameNormalizer
+                            .normalizeLayerName( uniqueLayerName );
+                    layerNameTaken = false;
+                    for ( int i = 0; i < layers.size(); i++ ) {
+                        layerNameTaken |= ( i != excludeLayerIndex ) && uniqueLayerNameKey
+                                .equals( layerNameNormalizer
+                                        .normalizeLayerName( layers.get( i ).getLayerName() ) );
+                    }
+                }
+                while ( layerNameTaken );
+
+                assertEquals( uniqueLayerName,
+                              LayerUtilities.getUniqueLayerName( layerNameCandidate,
+                                                                 layerCollection,
+                                                                 numberFormat,
+                                                                 uniquefierNumber,
+                                                                 excludeLayerIndex ) );
+            }
+        }
+    }
+
+    @Test
+    void randomEditsMatchPlainCollection() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final Random random = new Random( 2L );
+        final ObservableList< LayerProperties > plainCollection = LayerUtilities
+                .makeLayerCollection();
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = plainCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            final String layerName = LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ];
+            switch ( ( layerCount > 1 ) ? random.nextInt( 4 ) : 0 ) {
+            case 0:
+            case 1:
+                // Keep the collections growing, so that long runs of numbers
+                // get taken.
+                LayerUtilities.addLayer( plainCollection, makeLayer( layerName ), numberFormat );
+                LayerUtilities.addLayer( layerCollection, makeLayer( layerName ), numberFormat );
+                break;
+            case 2:
+                plainCollection.remove( layerIndex );
+                layerCollection.remove( layerIndex );
+                break;
+            default:
+                plainCollection.get( layerIndex ).setLayerName( layerName );
+                layerCollection.get( layerIndex ).setLayerName( layerName );
+                break;
+            }
+
+            assertEquals( getLayerNames( plainCollection ), getLayerNames( layerCollection ) );
+
+            final int excludeLayerIndex = random.nextInt( layerCount + 1 ) - 1;
+            final int uniquefierNumber = random.nextInt( 3 );
+            for ( final String layerNameCandidate : LAYER_NAMES ) {
+                assertEquals( LayerUtilities.getUniqueLayerName( layerNameCandidate,
+                                                                 plainCollection,
+                                                                 numberFormat,
+                                                                 uniquefierNumber,
+                                                                 excludeLayerIndex ),
+                              LayerUtilities.getUniqueLayerName( layerNameCandidate,
+                                                                 layerCollection,
+                                                                 numberFormat,
+                                                                 uniquefierNumber,
+                                                                 excludeLayerIndex ) );
+            }
+        }
+    }
+
+    private static List< String > getLayerNames( final List< LayerProperties > layers ) {
+        final List< String > layerNames = new ArrayList<>( layers.size() );
+        for ( final LayerProperties layer : layers ) {
+            layerNames.add( layer.getLayerName() );
+        }
+        return layerNames;
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that the indexed Layer Collection hands out the same next available
+// Layer Names as a plain Layer Collection, as numbers are taken and freed.
+final class LayerNumberAllocatorTest {
+
+    private static final String[] LAYER_NAME_DEFAULTS = { LayerUtilities.LAYER_NAME_DEFAULT,
+        "Level" }; //$NON-NLS-1$
+
+    @Test
+    void randomEditsMatchPlainCollection() {
+        final Random random = new Random( 3L );
+        final ObservableList< LayerProperties > plainCollection = LayerUtilities
+                .makeLayerCollection();
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = plainCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            final String layerNameDefault = LAYER_NAME_DEFAULTS[ random
+                    .nextInt( LAYER_NAME_DEFAULTS.length ) ];
+            switch ( ( layerCount > 1 ) ? random.nextInt( 4 ) : 0 ) {
+            case 0:
+            case 1:
+                final String nextLayerName = LayerUtilities
+                        .getNextAvailableLayerName( layerNameDefault, plainCollection );
+                plainCollection.add( makeLayer( nextLayerName ) );
+                layerCollection.add( makeLayer( nextLayerName ) );
+                break;
+            case 2:
+                plainCollection.remove( layerIndex );
+                layerCollection.remove( layerIndex );
+                break;
+            default:
+                // Take a number out of turn, possibly one that is taken already.
+                final String layerName = layerNameDefault + " " //$NON-NLS-1$
+                        + random.nextInt( layerCount + 4 );
+                plainCollection.get( layerIndex ).setLayerName( layerName );
+                layerCollection.get( layerIndex ).setLayerName( layerName );
+                break;
+            }
+
+            final int layerNumber = random.nextInt( plainCollection.size() + 4 );
+            for ( final String probeLayerNameDefault : LAYER_NAME_DEFAULTS ) {
+                assertEquals( LayerUtilities.getNextAvailableLayerName( probeLayerNameDefault,
+                                                                        plainCollection ),
+                              LayerUtilities.getNextAvailableLayerName( probeLayerNameDefault,
+                                                                        layerCollection ) );
+                assertEquals( LayerUtilities.getNextAvailableLayerName( probeLayerNameDefault,
+                                                                        plainCollection,
+                                                                        layerNumber ),
+                              LayerUtilities.getNextAvailableLayerName( probeLayerNameDefault,
+                                                                        layerCollection,
+                                                                        layerNumber ) );
+            }
+        }
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
@@ -0,0 +1,100 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import javafx.scene.paint.Color;
+
+// Checks the position index against a plain search of the same Layers.
+final class LayerPositionIndexTest {
+
+    @Test
+    void randomEditsMatchPlainSearch() {
+        final Random random = new Random( 4L );
+        final List< LayerProperties > candidateLayers = new ArrayList<>();
+        for ( int layerNumber = 0; layerNumber < 60; layerNumber++ ) {
+            candidateLayers.add( new LayerProperties( "Layer " + layerNumber, //$NON-NLS-1$
+                                                      Color.BLACK,
+                                                      false,
+                                                      true,
+                                                      false ) );
+        }
+
+        final List< LayerProperties > layers = new ArrayList<>();
+        final LayerPositionIndex layerPositionIndex = new LayerPositionIndex( layers );
+        for ( int step = 0; step < 20000; step++ ) {
+            final LayerProperties layer = candidateLayers
+                    .get( random.nextInt( candidateLayers.size() ) );
+            final int operation = layers.isEmpty() ? 0 : random.nextInt( 10 );
+            if ( operation < 4 ) {
+                // NOTE: The same Layer may be added more than once.
+                final int index = random.nextBoolean()
+                    ? layers.size()
+                    : random.nextInt( layers.size() + 1 );
+                layers.add( index, layer );
+                layerPositionIndex.layerAdded( index, layer );
+            }
+            else if ( operation < 8 ) {
+                final int index = random.nextInt( layers.size() );
+                layerPositionIndex.layerRemoved( index, layers.remove( index ) );
+            }
+            else if ( operation < 9 ) {
+                final int index = random.nextInt( layers.size() );
+                layerPositionIndex.layerReplaced( index, layers.set( index, layer ), layer );
+            }
+            else if ( random.nextInt( 20 ) == 0 ) {
+                Collections.shuffle( layers, random );
+                layerPositionIndex.invalidate();
+            }
+
+            // NOTE: Only some Layers are looked up each time, so that some of
+            // them fall behind by many shifts.
+            for ( int lookup = 0; lookup < 3; lookup++ ) {
+                final LayerProperties lookupLayer = candidateLayers
+                        .get( random.nextInt( candidateLayers.size() ) );
+                assertEquals( layers.indexOf( lookupLayer ), layerPositionIndex.indexOf( lookupLayer ) );
+            }
+        }
+
+        for ( final LayerProperties layer : candidateLayers ) {
+            assertEquals( layers.indexOf( layer ), layerPositionIndex.indexOf( layer ) );
+        }
+    }
+
+}
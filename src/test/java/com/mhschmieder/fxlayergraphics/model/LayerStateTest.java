@@ -0,0 +1,168 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.NumberFormat;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that restoring a saved Layer State puts back the captured Layers of
+// the indexed Layer Collection just as for a plain Layer Collection, and as
+// a single change.
+final class LayerStateTest {
+
+    private static final Color[] LAYER_COLORS = { Color.RED, Color.BLUE, Color.rgb( 10, 20, 30, 0.5 ) };
+
+    @Test
+    void randomEditsMatchPlainCollection() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final Random random = new Random( 16L );
+        final ObservableList< LayerProperties > plainCollection = LayerUtilities
+                .makeLayerCollection();
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        final int[] changeCount = new int[ 1 ];
+        layerCollection.addListener( ( ListChangeListener< LayerProperties > ) change -> changeCount[ 0 ]++ );
+
+        LayerState plainLayerState = new LayerState( plainCollection );
+        LayerState layerState = new LayerState( layerCollection );
+        Map< LayerProperties, String > capturedLayers = describeLayers( plainCollection );
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = plainCollection.size();
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            final Color layerColor = LAYER_COLORS[ random.nextInt( LAYER_COLORS.length ) ];
+            switch ( ( layerCount > 1 ) ? random.nextInt( 8 ) : 0 ) {
+            case 0:
+                final boolean layerVisible = random.nextBoolean();
+                LayerUtilities.addLayer( plainCollection,
+                                         makeLayer( layerColor, layerVisible ),
+                                         numberFormat );
+                LayerUtilities.addLayer( layerCollection,
+                                         makeLayer( layerColor, layerVisible ),
+                                         numberFormat );
+                break;
+            case 1:
+                plainCollection.remove( layerIndex );
+                layerCollection.remove( layerIndex );
+                break;
+            case 2:
+                final boolean visible = random.nextBoolean();
+                plainCollection.get( layerIndex ).setLayerVisible( visible );
+                layerCollection.get( layerIndex ).setLayerVisible( visible );
+                break;
+            case 3:
+                final boolean locked = random.nextBoolean();
+                plainCollection.get( layerIndex ).setLayerLocked( locked );
+                layerCollection.get( layerIndex ).setLayerLocked( locked );
+                break;
+            case 4:
+                plainCollection.get( layerIndex ).setLayerColor( layerColor );
+                layerCollection.get( layerIndex ).setLayerColor( layerColor );
+                break;
+            case 5:
+                final String activeLayerName = plainCollection.get( layerIndex ).getLayerName();
+                LayerUtilities.enforceActiveLayerPolicy( plainCollection, activeLayerName, false );
+                LayerUtilities.enforceActiveLayerPolicy( layerCollection, activeLayerName, false );
+                break;
+            case 6:
+                plainLayerState = new LayerState( plainCollection );
+                layerState = new LayerState( layerCollection );
+                capturedLayers = describeLayers( plainCollection );
+                break;
+            default:
+                changeCount[ 0 ] = 0;
+                LayerUtilities.restoreLayerState( plainCollection, plainLayerState );
+                LayerUtilities.restoreLayerState( layerCollection, layerState );
+                assertTrue( changeCount[ 0 ] <= 1 );
+
+                // Every captured Layer that is still around is back as it was.
+                for ( final LayerProperties layer : plainCollection ) {
+                    final String capturedLayer = capturedLayers.get( layer );
+                    if ( capturedLayer != null ) {
+                        assertEquals( capturedLayer, describeLayer( layer ) );
+                    }
+                }
+                break;
+            }
+
+            assertEquals( describeLayers( plainCollection ).values().toString(),
+                          describeLayers( layerCollection ).values().toString() );
+            assertEquals( LayerUtilities.getActiveLayerIndex( plainCollection ),
+                          LayerUtilities.getActiveLayerIndex( layerCollection ) );
+            assertEquals( getVisibleLayerPositions( plainCollection ),
+                          layerCollection.getVisibleLayerPositions() );
+        }
+    }
+
+    private static String describeLayer( final LayerProperties layer ) {
+        return ( layer.isLayerVisible() ? "v" : "h" ) + ( layer.isLayerLocked() ? 'L' : 'u' ) //$NON-NLS-1$ //$NON-NLS-2$
+                + layer.getLayerColor();
+    }
+
+    private static Map< LayerProperties, String > describeLayers( final List< LayerProperties > layers ) {
+        // NOTE: Layers don't override equality, so they are keyed by identity.
+        final Map< LayerProperties, String > layerDescriptions = new LinkedHashMap<>();
+        for ( final LayerProperties layer : layers ) {
+            layerDescriptions.put( layer, describeLayer( layer ) );
+        }
+        return layerDescriptions;
+    }
+
+    private static BitSet getVisibleLayerPositions( final List< LayerProperties > layers ) {
+        final BitSet visibleLayerPositions = new BitSet();
+        for ( int layerIndex = 0; layerIndex < layers.size(); layerIndex++ ) {
+            visibleLayerPositions.set( layerIndex, layers.get( layerIndex ).isLayerVisible() );
+        }
+        return visibleLayerPositions;
+    }
+
+    private static LayerProperties makeLayer( final Color layerColor, final boolean layerVisible ) {
+        return new LayerProperties( LayerUtilities.LAYER_NAME_DEFAULT,
+                                    layerColor,
+                                    false,
+                                    layerVisible,
+                                    false );
+    }
+
+}
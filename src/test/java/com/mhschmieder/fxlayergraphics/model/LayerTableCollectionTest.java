@@ -0,0 +1,277 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks the flyweight Layer Collection against a plain Layer Collection that
+// is edited in the same way, and checks that its list changes replay onto a
+// copy of the collection.
+final class LayerTableCollectionTest {
+
+    private static final String[] LAYER_NAMES = { "Walls", "Doors", "M2", "M3", "M5", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        "Layer 1", "" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static final Color[] LAYER_COLORS = { Color.RED, Color.BLUE, Color.rgb( 10, 20, 30, 0.5 ) };
+
+    @Test
+    void removeTrailingRowsAfterRenamingRowViews() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final LayerTableCollection layerCollection = LayerUtilities.makeLayerTableCollection();
+        for ( int layerNumber = 1; layerNumber < 10; layerNumber++ ) {
+            LayerUtilities.addLayer( layerCollection,
+                                     makeLayer( "Layer " + layerNumber ), //$NON-NLS-1$
+                                     numberFormat );
+        }
+
+        layerCollection.get( 7 ).setLayerName( "M5" ); //$NON-NLS-1$
+        layerCollection.add( makeLayer( "M2" ) ); //$NON-NLS-1$
+        layerCollection.add( makeLayer( "M5" ) ); //$NON-NLS-1$
+        layerCollection.add( makeLayer( "M3" ) ); //$NON-NLS-1$
+        layerCollection.remove( 2, layerCollection.size() );
+
+        assertEquals( 2, layerCollection.size() );
+        assertEquals( -1, layerCollection.getLayerTable().getLayerIndex( "M5" ) ); //$NON-NLS-1$
+        assertEquals( 1, layerCollection.getLayerTable().getLayerIndex( "Layer 1" ) ); //$NON-NLS-1$
+        layerCollection.get( 1 ).setLayerName( "M5" ); //$NON-NLS-1$
+        assertEquals( 1, layerCollection.getLayerTable().getLayerIndex( "M5" ) ); //$NON-NLS-1$
+        assertFalse( LayerUtilities.isLayerNameUnique( "M5", layerCollection, -1 ) ); //$NON-NLS-1$
+    }
+
+    @Test
+    void layerIsOnlyAddedOnce() {
+        final LayerTableCollection layerCollection = LayerUtilities.makeLayerTableCollection();
+        final LayerProperties layer = makeLayer( "Walls" ); //$NON-NLS-1$
+        layerCollection.add( layer );
+        final LayerProperties rowView = layerCollection.get( 1 );
+        assertSame( layer, rowView );
+
+        assertThrows( IllegalArgumentException.class, () -> layerCollection.add( layer ) );
+        assertThrows( IllegalArgumentException.class, () -> layerCollection.set( 0, layer ) );
+        assertEquals( 2, layerCollection.size() );
+        assertEquals( 1, layerCollection.indexOf( layer ) );
+
+        // Setting a Layer back at its own row is fine.
+        assertSame( layer, layerCollection.set( 1, layer ) );
+        assertEquals( 1, layerCollection.indexOf( layer ) );
+    }
+
+    @Test
+    void renamedRowViewsShareLayerNames() {
+        final LayerTableCollection layerCollection = LayerUtilities.makeLayerTableCollection();
+        layerCollection.add( makeLayer( "Walls" ) ); //$NON-NLS-1$
+        layerCollection.add( makeLayer( "Doors" ) ); //$NON-NLS-1$
+        layerCollection.get( 2 ).setLayerName( "Walls" ); //$NON-NLS-1$
+
+        final LayerTable layerTable = layerCollection.getLayerTable();
+        assertEquals( "Walls", layerTable.getLayerName( 2 ) ); //$NON-NLS-1$
+        assertEquals( 1, layerTable.getLayerIndex( "Walls" ) ); //$NON-NLS-1$
+        assertEquals( -1, layerTable.getLayerIndex( "Doors" ) ); //$NON-NLS-1$
+        assertFalse( layerTable.isLayerNameUnique( "Walls", 1 ) ); //$NON-NLS-1$
+
+        layerCollection.remove( 1 );
+        assertEquals( 1, layerTable.getLayerIndex( "Walls" ) ); //$NON-NLS-1$
+        assertTrue( layerTable.isLayerNameUnique( "Walls", 1 ) ); //$NON-NLS-1$
+    }
+
+    @Test
+    void randomEditsMatchPlainCollection() {
+        final NumberFormat numberFormat = NumberFormat.getIntegerInstance();
+        final Random random = new Random( 25L );
+        final ObservableList< LayerProperties > plainCollection = LayerUtilities
+                .makeLayerCollection();
+        final LayerTableCollection layerCollection = LayerUtilities.makeLayerTableCollection();
+
+        // Replay every list change onto a copy, to check that the changes
+        // are well formed.
+        final List< String > replayedLayers = new ArrayList<>();
+        for ( final LayerProperties layer : layerCollection ) {
+            replayedLayers.add( describeLayer( layer ) );
+        }
+        layerCollection.addListener( ( ListChangeListener< LayerProperties > ) change -> {
+            while ( change.next() ) {
+                if ( change.wasPermutated() ) {
+                    final List< String > oldLayers = new ArrayList<>( replayedLayers );
+                    for ( int i = change.getFrom(); i < change.getTo(); i++ ) {
+                        replayedLayers.set( change.getPermutation( i ), oldLayers.get( i ) );
+                    }
+                }
+                else if ( change.wasUpdated() ) {
+                    for ( int i = change.getFrom(); i < change.getTo(); i++ ) {
+                        replayedLayers.set( i, describeLayer( change.getList().get( i ) ) );
+                    }
+                }
+                else {
+                    replayedLayers.subList( change.getFrom(),
+                                            change.getFrom() + change.getRemovedSize() )
+                            .clear();
+                    for ( int i = change.getFrom(); i < change.getTo(); i++ ) {
+                        replayedLayers.add( i, describeLayer( change.getList().get( i ) ) );
+                    }
+                }
+            }
+        } );
+
+        final List< LayerProperties > heldLayers = new ArrayList<>();
+        for ( int step = 0; step < 5000; step++ ) {
+            final int layerCount = plainCollection.size();
+            // NOTE: Only add Layers while there is nothing but the Default
+            // Layer, as the Default Layer isn't edited.
+            final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+            switch ( ( layerCount > 1 ) ? random.nextInt( 9 ) : 0 ) {
+            case 0:
+            case 1:
+                final String layerName = LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ];
+                final Color layerColor = LAYER_COLORS[ random.nextInt( LAYER_COLORS.length ) ];
+                final boolean layerVisible = random.nextBoolean();
+                LayerUtilities.addLayer( plainCollection,
+                                         new LayerProperties( layerName,
+                                                              layerColor,
+                                                              false,
+                                                              layerVisible,
+                                                              false ),
+                                         numberFormat );
+                LayerUtilities.addLayer( layerCollection,
+                                         new LayerProperties( layerName,
+                                                              layerColor,
+                                                              false,
+                                                              layerVisible,
+                                                              false ),
+                                         numberFormat );
+                break;
+            case 2:
+                plainCollection.remove( layerIndex );
+                layerCollection.remove( layerIndex );
+                break;
+            case 3:
+                final int toLayerIndex = layerIndex + random.nextInt( layerCount - layerIndex + 1 );
+                plainCollection.remove( layerIndex, toLayerIndex );
+                layerCollection.remove( layerIndex, toLayerIndex );
+                break;
+            case 4:
+                final boolean visible = random.nextBoolean();
+                LayerUtilities.enforceHiddenLayerPolicy( plainCollection, layerIndex, visible );
+                LayerUtilities.enforceHiddenLayerPolicy( layerCollection, layerIndex, visible );
+                break;
+            case 5:
+                final String activeLayerName = plainCollection.get( layerIndex ).getLayerName();
+                LayerUtilities.enforceActiveLayerPolicy( plainCollection, activeLayerName, false );
+                LayerUtilities.enforceActiveLayerPolicy( layerCollection, activeLayerName, false );
+                break;
+            case 6:
+                // Rename directly through the row view, without uniquefying.
+                final String newLayerName = LAYER_NAMES[ random.nextInt( LAYER_NAMES.length ) ];
+                plainCollection.get( layerIndex ).setLayerName( newLayerName );
+                layerCollection.get( layerIndex ).setLayerName( newLayerName );
+                break;
+            case 7:
+                final Color newLayerColor = LAYER_COLORS[ random.nextInt( LAYER_COLORS.length ) ];
+                final boolean locked = random.nextBoolean();
+                plainCollection.get( layerIndex ).setLayerColor( newLayerColor );
+                plainCollection.get( layerIndex ).setLayerLocked( locked );
+                layerCollection.get( layerIndex ).setLayerColor( newLayerColor );
+                layerCollection.get( layerIndex ).setLayerLocked( locked );
+                break;
+            default:
+                // Hold on to some row views, and let go of others.
+                if ( random.nextBoolean() ) {
+                    heldLayers.add( layerCollection.get( random.nextInt( layerCollection.size() ) ) );
+                }
+                else if ( !heldLayers.isEmpty() ) {
+                    heldLayers.remove( 0 );
+                }
+                if ( random.nextInt( 100 ) == 0 ) {
+                    System.gc();
+                }
+                break;
+            }
+
+            assertEquals( describeLayers( plainCollection ), describeLayers( layerCollection ) );
+            assertEquals( describeLayers( plainCollection ), String.join( "", replayedLayers ) ); //$NON-NLS-1$
+            final LayerTable layerTable = layerCollection.getLayerTable();
+            for ( final String layerName : LAYER_NAMES ) {
+                assertEquals( getFirstLayerIndex( plainCollection, layerName ),
+                              layerTable.getLayerIndex( layerName ) );
+            }
+            for ( final LayerProperties heldLayer : heldLayers ) {
+                final int heldLayerIndex = layerCollection.indexOf( heldLayer );
+                assertTrue( ( heldLayerIndex < 0 )
+                        || ( layerCollection.get( heldLayerIndex ) == heldLayer ) );
+            }
+        }
+    }
+
+    private static String describeLayer( final LayerProperties layer ) {
+        return layer.getLayerName() + ( layer.isLayerVisible() ? 'v' : 'h' )
+                + ( layer.isLayerLocked() ? 'L' : 'u' ) + ( layer.isLayerActive() ? 'A' : '.' )
+                + Integer.toHexString( LayerColorPalette.toArgb( layer.getLayerColor() ) ) + '|';
+    }
+
+    private static String describeLayers( final List< LayerProperties > layers ) {
+        final StringBuilder description = new StringBuilder();
+        for ( final LayerProperties layer : layers ) {
+            description.append( describeLayer( layer ) );
+        }
+        return description.toString();
+    }
+
+    private static int getFirstLayerIndex( final List< LayerProperties > layers,
+                                           final String layerName ) {
+        for ( int layerIndex = 0; layerIndex < layers.size(); layerIndex++ ) {
+            if ( layers.get( layerIndex ).getLayerName().equals( layerName ) ) {
+                return layerIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+}
@@ -0,0 +1,194 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Checks the Layer Table's columns and Layer Name hash index against a plain
+// list of Layer Names that is edited in the same way.
+final class LayerTableTest {
+
+    // Declare the Layer Names to edit with, which are few enough that Layer
+    // Names are often shared.
+    private static final String[] LAYER_NAMES = { "Default", "Walls", "Doors", "M2", "M3", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        "M5", "Layer 1", "Layer 2", "Layer 10", "walls" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+    @Test
+    void removeTrailingRowsWithSharedLayerNames() {
+        final LayerTable layerTable = new LayerTable();
+        final List< String > layerNames = new ArrayList<>();
+        layerNames.add( layerTable.getLayerName( 0 ) );
+        for ( int layerNumber = 1; layerNumber < 10; layerNumber++ ) {
+            insertLayerRow( layerTable, layerNames, layerNames.size(), "Layer " + layerNumber ); //$NON-NLS-1$
+        }
+
+        layerTable.setLayerNameRow( 7, "M5" ); //$NON-NLS-1$
+        layerNames.set( 7, "M5" ); //$NON-NLS-1$
+        insertLayerRow( layerTable, layerNames, layerNames.size(), "M2" ); //$NON-NLS-1$
+        insertLayerRow( layerTable, layerNames, layerNames.size(), "M5" ); //$NON-NLS-1$
+        insertLayerRow( layerTable, layerNames, layerNames.size(), "M3" ); //$NON-NLS-1$
+
+        layerTable.removeLayerRows( 2, layerTable.getLayerCount() );
+        layerNames.subList( 2, layerNames.size() ).clear();
+        assertLayerNamesMatch( layerNames, layerTable );
+
+        // The hash index must still be usable for later edits.
+        layerTable.setLayerNameRow( 1, "M5" ); //$NON-NLS-1$
+        layerNames.set( 1, "M5" ); //$NON-NLS-1$
+        assertLayerNamesMatch( layerNames, layerTable );
+    }
+
+    @Test
+    void randomEditsMatchPlainList() {
+        final Random random = new Random( 24L );
+        for ( int run = 0; run < 200; run++ ) {
+            final LayerTable layerTable = new LayerTable();
+            final List< String > layerNames = new ArrayList<>();
+            layerNames.add( layerTable.getLayerName( 0 ) );
+
+            for ( int step = 0; step < 100; step++ ) {
+                final int layerCount = layerNames.size();
+                switch ( random.nextInt( 6 ) ) {
+                case 0:
+                case 1:
+                    insertLayerRow( layerTable,
+                                    layerNames,
+                                    1 + random.nextInt( layerCount ),
+                                    getRandomLayerName( random ) );
+                    break;
+                case 2:
+                    if ( layerCount > 1 ) {
+                        final int layerIndex = 1 + random.nextInt( layerCount - 1 );
+                        layerTable.removeLayerRow( layerIndex );
+                        layerNames.remove( layerIndex );
+                    }
+                    break;
+                case 3:
+                    if ( layerCount > 1 ) {
+                        final int fromLayerIndex = 1 + random.nextInt( layerCount - 1 );
+                        final int toLayerIndex = fromLayerIndex
+                                + random.nextInt( layerCount - fromLayerIndex + 1 );
+                        layerTable.removeLayerRows( fromLayerIndex, toLayerIndex );
+                        layerNames.subList( fromLayerIndex, toLayerIndex ).clear();
+                    }
+                    break;
+                case 4:
+                    final int layerIndex = random.nextInt( layerCount );
+                    final String layerName = getRandomLayerName( random );
+                    layerTable.setLayerNameRow( layerIndex, layerName );
+                    layerNames.set( layerIndex, layerName );
+                    break;
+                default:
+                    final List< Integer > layerOrder = new ArrayList<>();
+                    for ( int i = 0; i < layerCount; i++ ) {
+                        layerOrder.add( i );
+                    }
+                    Collections.shuffle( layerOrder, random );
+                    final int[] order = new int[ layerCount ];
+                    final List< String > oldLayerNames = new ArrayList<>( layerNames );
+                    for ( int i = 0; i < layerCount; i++ ) {
+                        order[ i ] = layerOrder.get( i );
+                        layerNames.set( i, oldLayerNames.get( order[ i ] ) );
+                    }
+                    layerTable.reorderLayerRows( order );
+                    break;
+                }
+
+                assertLayerNamesMatch( layerNames, layerTable );
+            }
+        }
+    }
+
+    @Test
+    void flagsAndColorsFollowTheirRows() {
+        final LayerTable layerTable = new LayerTable();
+        for ( int layerIndex = 1; layerIndex < 100; layerIndex++ ) {
+            layerTable.insertLayerRow( layerIndex,
+                                       "Layer " + layerIndex, //$NON-NLS-1$
+                                       layerIndex,
+                                       ( ( layerIndex % 3 ) == 0 )
+                                           ? LayerProperties.LAYER_VISIBLE_FLAG
+                                           : LayerProperties.LAYER_LOCKED_FLAG );
+        }
+
+        layerTable.removeLayerRows( 10, 70 );
+        layerTable.removeLayerRow( 1 );
+        layerTable.insertLayerRow( 1, "First", 1000, LayerProperties.LAYER_VISIBLE_FLAG ); //$NON-NLS-1$
+
+        assertEquals( 40, layerTable.getLayerCount() );
+        assertEquals( 1000, layerTable.getLayerColorArgb( 1 ) );
+        assertTrue( layerTable.isLayerVisible( 1 ) );
+        for ( int layerIndex = 2; layerIndex < layerTable.getLayerCount(); layerIndex++ ) {
+            final int layerNumber = Integer
+                    .parseInt( layerTable.getLayerName( layerIndex ).substring( 6 ) );
+            assertEquals( ( layerNumber < 10 ) ? layerIndex : layerIndex + 60, layerNumber );
+            assertEquals( layerNumber, layerTable.getLayerColorArgb( layerIndex ) );
+            assertEquals( ( layerNumber % 3 ) == 0, layerTable.isLayerVisible( layerIndex ) );
+            assertEquals( ( layerNumber % 3 ) != 0, layerTable.isLayerLocked( layerIndex ) );
+        }
+        assertEquals( layerTable.getLayerCount(),
+                      layerTable.getVisibleLayerCount() + layerTable.getHiddenLayerCount() );
+    }
+
+    private static void assertLayerNamesMatch( final List< String > layerNames,
+                                               final LayerTable layerTable ) {
+        assertEquals( layerNames.size(), layerTable.getLayerCount() );
+        for ( int layerIndex = 0; layerIndex < layerNames.size(); layerIndex++ ) {
+            assertEquals( layerNames.get( layerIndex ), layerTable.getLayerName( layerIndex ) );
+        }
+        for ( final String layerName : LAYER_NAMES ) {
+            assertEquals( layerNames.indexOf( layerName ), layerTable.getLayerIndex( layerName ) );
+            assertEquals( Collections.frequency( layerNames, layerName ) == 0,
+                          layerTable.isLayerNameUnique( layerName, -1 ) );
+        }
+    }
+
+    private static String getRandomLayerName( final Random random ) {
+        return LAYER_NAMES[ 1 + random.nextInt( LAYER_NAMES.length - 1 ) ];
+    }
+
+    private static void insertLayerRow( final LayerTable layerTable,
+                                        final List< String > layerNames,
+                                        final int layerIndex,
+                                        final String layerName ) {
+        layerTable.insertLayerRow( layerIndex, layerName, 0, LayerProperties.LAYER_VISIBLE_FLAG );
+        layerNames.add( layerIndex, layerName );
+    }
+
+}
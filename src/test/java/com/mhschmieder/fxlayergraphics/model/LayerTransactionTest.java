@@ -0,0 +1,265 @@
+/**
+ * MIT License
+ *
+ * Copyright (c) 2020, 2023 Mark Schmieder
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ *
+ * This file is part of the FxLayerGraphics Library
+ *
+ * You should have received a copy of the MIT License along with the
+ * FxLayerGraphics Library. If not, see <https://opensource.org/licenses/MIT>.
+ *
+ * Project: https://github.com/mhschmieder/fxlayergraphics
+ */
+package com.mhschmieder.fxlayergraphics.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.mhschmieder.fxlayergraphics.LayerUtilities;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.scene.paint.Color;
+
+// Checks that the single change reported when a transaction is closed replays
+// onto a copy of the collection as it was before the transaction, whatever mix
+// of edits was made during it.
+final class LayerTransactionTest {
+
+    // Replays list changes onto a copy of a Layer Collection, checking the
+    // removed Layers against the copy as it goes.
+    private static final class LayerReplay implements ListChangeListener< LayerProperties > {
+
+        private final List< LayerProperties > replayedLayers;
+        private int                           changeCount;
+
+        private LayerReplay( final List< LayerProperties > layerCollection ) {
+            replayedLayers = new ArrayList<>( layerCollection );
+            changeCount = 0;
+        }
+
+        @Override
+        public void onChanged( final Change< ? extends LayerProperties > change ) {
+            changeCount++;
+            int previousTo = 0;
+            while ( change.next() ) {
+                assertTrue( change.getFrom() >= previousTo );
+                if ( change.wasPermutated() ) {
+                    final List< LayerProperties > oldLayers = new ArrayList<>( replayedLayers );
+                    for ( int i = change.getFrom(); i < change.getTo(); i++ ) {
+                        replayedLayers.set( change.getPermutation( i ), oldLayers.get( i ) );
+                    }
+                }
+                else if ( !change.wasUpdated() ) {
+                    final List< LayerProperties > removedLayers = replayedLayers
+                            .subList( change.getFrom(), change.getFrom() + change.getRemovedSize() );
+                    assertEquals( removedLayers, change.getRemoved() );
+                    removedLayers.clear();
+                    replayedLayers.addAll( change.getFrom(), change.getAddedSubList() );
+                }
+                previousTo = change.getTo();
+            }
+        }
+
+    }
+
+    @Test
+    void reportedSequenceReplays() {
+        // Remove row 6, add, remove row 6, remove row 3, remove row 1.
+        final LayerCollection layerCollection = makeLayerCollection( 8 );
+        final LayerReplay layerReplay = new LayerReplay( layerCollection );
+        layerCollection.addListener( layerReplay );
+
+        try ( final LayerTransaction layerTransaction = layerCollection.beginTransaction() ) {
+            assertTrue( layerTransaction.isOpen() );
+            layerCollection.remove( 6 );
+            layerCollection.add( makeLayer( "Added" ) ); //$NON-NLS-1$
+            layerCollection.remove( 6 );
+            layerCollection.remove( 3 );
+            layerCollection.remove( 1 );
+            assertEquals( 0, layerReplay.changeCount );
+        }
+
+        assertEquals( 1, layerReplay.changeCount );
+        assertEquals( layerCollection, layerReplay.replayedLayers );
+    }
+
+    @Test
+    void nestedTransactionsReportOnce() {
+        final LayerCollection layerCollection = makeLayerCollection( 4 );
+        final LayerReplay layerReplay = new LayerReplay( layerCollection );
+        layerCollection.addListener( layerReplay );
+
+        try ( final LayerTransaction outerTransaction = layerCollection.beginTransaction() ) {
+            layerCollection.get( 1 ).setLayerColor( Color.RED );
+            try ( final LayerTransaction innerTransaction = LayerUtilities
+                    .beginTransaction( layerCollection ) ) {
+                layerCollection.remove( 2 );
+                layerCollection.get( 2 ).setLayerLocked( true );
+            }
+            assertEquals( 0, layerReplay.changeCount );
+        }
+
+        assertEquals( 1, layerReplay.changeCount );
+        assertEquals( layerCollection, layerReplay.replayedLayers );
+    }
+
+    @Test
+    void emptyTransactionReportsNothing() {
+        final LayerCollection layerCollection = makeLayerCollection( 4 );
+        final LayerReplay layerReplay = new LayerReplay( layerCollection );
+        layerCollection.addListener( layerReplay );
+
+        final LayerTransaction layerTransaction = layerCollection.beginTransaction();
+        layerTransaction.close();
+        assertFalse( layerTransaction.isOpen() );
+        layerTransaction.close();
+
+        assertEquals( 0, layerReplay.changeCount );
+    }
+
+    @Test
+    void randomTransactionsReplay() {
+        final Random random = new Random( 18L );
+        for ( int run = 0; run < 3000; run++ ) {
+            final LayerCollection layerCollection = makeLayerCollection( 8 );
+            final ObservableList< String > assignableLayerNames = layerCollection
+                    .getAssignableLayerNames();
+            final LayerReplay layerReplay = new LayerReplay( layerCollection );
+            layerCollection.addListener( layerReplay );
+
+            try ( final LayerTransaction layerTransaction = layerCollection.beginTransaction() ) {
+                for ( int step = 0, numberOfSteps = 1 + random.nextInt( 8 ); step < numberOfSteps; step++ ) {
+                    editLayerCollection( layerCollection, random, run * 100 + step );
+                }
+            }
+
+            assertEquals( layerCollection, layerReplay.replayedLayers );
+            assertEquals( getAssignableLayerNames( layerCollection ), assignableLayerNames );
+        }
+    }
+
+    private static void editLayerCollection( final AbstractLayerCollection layerCollection,
+                                             final Random random,
+                                             final int layerNumber ) {
+        final int layerCount = layerCollection.size();
+        final int layerIndex = 1 + random.nextInt( Math.max( layerCount - 1, 1 ) );
+        final int operation = ( layerCount > 1 ) ? random.nextInt( 9 ) : 0;
+        switch ( operation ) {
+        case 0:
+            layerCollection.add( random.nextInt( layerCount + 1 ),
+                                 makeLayer( "Added " + ( layerNumber % 5 ) ) ); //$NON-NLS-1$
+            break;
+        case 1:
+            layerCollection.remove( layerIndex );
+            break;
+        case 2:
+            layerCollection.remove( layerIndex,
+                                    layerIndex + random.nextInt( layerCount - layerIndex + 1 ) );
+            break;
+        case 3:
+            layerCollection.set( layerIndex, makeLayer( "Set " + ( layerNumber % 5 ) ) ); //$NON-NLS-1$
+            break;
+        case 4:
+            layerCollection.get( layerIndex ).setLayerName( "Renamed " + ( layerNumber % 3 ) ); //$NON-NLS-1$
+            break;
+        case 5:
+            layerCollection.get( layerIndex ).setLayerVisible( random.nextBoolean() );
+            break;
+        case 6:
+            layerCollection.addAll( layerIndex,
+                                    Arrays.asList( makeLayer( "First " + layerNumber ), //$NON-NLS-1$
+                                                   makeLayer( "Second " + layerNumber ) ) ); //$NON-NLS-1$
+            break;
+        case 7:
+            layerCollection.sort( ( layer1, layer2 ) -> layer2.getLayerName()
+                    .compareTo( layer1.getLayerName() ) );
+            break;
+        default:
+            layerCollection.get( layerIndex ).setLayerActive( true );
+            break;
+        }
+    }
+
+    @Test
+    void randomTableTransactionsReplay() {
+        final Random random = new Random( 1018L );
+        for ( int run = 0; run < 3000; run++ ) {
+            final LayerTableCollection layerCollection = new LayerTableCollection();
+            for ( int layerNumber = 1; layerNumber < 8; layerNumber++ ) {
+                layerCollection.add( makeLayer( "Layer " + layerNumber ) ); //$NON-NLS-1$
+            }
+            final LayerReplay layerReplay = new LayerReplay( layerCollection );
+            layerCollection.addListener( layerReplay );
+
+            try ( final LayerTransaction layerTransaction = LayerUtilities
+                    .beginTransaction( layerCollection ) ) {
+                assertTrue( layerTransaction.isOpen() );
+                for ( int step = 0, numberOfSteps = 1 + random.nextInt( 8 ); step < numberOfSteps; step++ ) {
+                    editLayerCollection( layerCollection, random, run * 100 + step );
+                }
+                assertEquals( 0, layerReplay.changeCount );
+            }
+
+            assertTrue( layerReplay.changeCount <= 1 );
+            assertEquals( layerCollection, layerReplay.replayedLayers );
+            for ( int layerIndex = 0; layerIndex < layerCollection.size(); layerIndex++ ) {
+                assertEquals( layerCollection.get( layerIndex ).getLayerName(),
+                              layerCollection.getLayerTable().getLayerName( layerIndex ) );
+            }
+        }
+    }
+
+    private static List< String > getAssignableLayerNames( final List< LayerProperties > layerCollection ) {
+        final Set< String > assignableLayerNames = new LinkedHashSet<>();
+        for ( final LayerProperties layer : layerCollection ) {
+            if ( layer.isLayerVisible() && !layer.isLayerNameBlank() ) {
+                assignableLayerNames.add( layer.getLayerName() );
+            }
+        }
+
+        return new ArrayList<>( assignableLayerNames );
+    }
+
+    private static LayerProperties makeLayer( final String layerName ) {
+        return new LayerProperties( layerName, Color.BLACK, false, true, false );
+    }
+
+    private static LayerCollection makeLayerCollection( final int layerCount ) {
+        final LayerCollection layerCollection = LayerUtilities.makeIndexedLayerCollection();
+        for ( int layerNumber = 1; layerNumber < layerCount; layerNumber++ ) {
+            layerCollection.add( makeLayer( "Layer " + layerNumber ) ); //$NON-NLS-1$
+        }
+
+        return layerCollection;
+    }
+
+}